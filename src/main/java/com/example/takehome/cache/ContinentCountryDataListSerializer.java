@@ -0,0 +1,96 @@
+package com.example.takehome.cache;
+
+import com.example.takehome.catalog.CountryCodeSlots;
+import com.example.takehome.dto.ContinentCountryData;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact Ehcache serializer for the off-heap tier of the countryDataCache.
+ * A result is written as the number of continents followed, for every continent, by its UTF-8 name
+ * and its two code lists; every country code is written as its 2 bytes {@link CountryCodeSlots} slot.
+ * A typical result takes a few hundred bytes instead of the several kilobytes of Java serialization,
+ * and reading it back does not go through reflection.
+ */
+public class ContinentCountryDataListSerializer implements Serializer<List<ContinentCountryData>> {
+
+    /**
+     * Ehcache requires serializers of transient caches to provide this constructor.
+     *
+     * @param classLoader the class loader of the cache, not used
+     */
+    public ContinentCountryDataListSerializer(ClassLoader classLoader) {
+    }
+
+    @Override
+    public ByteBuffer serialize(List<ContinentCountryData> continentCountries) throws SerializerException {
+        // Encode the names first to size the buffer exactly
+        byte[][] names = new byte[continentCountries.size()][];
+        int size = Short.BYTES;
+        for (int i = 0; i < continentCountries.size(); i++) {
+            ContinentCountryData continentCountryData = continentCountries.get(i);
+            names[i] = continentCountryData.getName().getBytes(StandardCharsets.UTF_8);
+            size += Short.BYTES + names[i].length
+                    + Short.BYTES * (2 + continentCountryData.getCountries().size()
+                    + continentCountryData.getOtherCountries().size());
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putShort((short) continentCountries.size());
+        for (int i = 0; i < continentCountries.size(); i++) {
+            buffer.putShort((short) names[i].length);
+            buffer.put(names[i]);
+            writeCodes(buffer, continentCountries.get(i).getCountries());
+            writeCodes(buffer, continentCountries.get(i).getOtherCountries());
+        }
+        return buffer.flip();
+    }
+
+    @Override
+    public List<ContinentCountryData> read(ByteBuffer binary) throws SerializerException {
+        int continentCount = binary.getShort();
+        List<ContinentCountryData> continentCountries = new ArrayList<>(continentCount);
+        for (int i = 0; i < continentCount; i++) {
+            byte[] name = new byte[binary.getShort()];
+            binary.get(name);
+
+            ContinentCountryData continentCountryData = new ContinentCountryData();
+            continentCountryData.setName(new String(name, StandardCharsets.UTF_8));
+            continentCountryData.setCountries(readCodes(binary));
+            continentCountryData.setOtherCountries(readCodes(binary));
+            continentCountries.add(continentCountryData);
+        }
+        return Collections.unmodifiableList(continentCountries);
+    }
+
+    @Override
+    public boolean equals(List<ContinentCountryData> continentCountries, ByteBuffer binary) throws SerializerException {
+        return serialize(continentCountries).equals(binary);
+    }
+
+    private static void writeCodes(ByteBuffer buffer, List<String> codes) {
+        buffer.putShort((short) codes.size());
+        for (String code : codes) {
+            int slot = CountryCodeSlots.slotOf(code);
+            if (slot == CountryCodeSlots.NO_SLOT) {
+                throw new SerializerException("Country code can not be serialized: " + code);
+            }
+            buffer.putShort((short) slot);
+        }
+    }
+
+    private static List<String> readCodes(ByteBuffer binary) {
+        int codeCount = binary.getShort();
+        List<String> codes = new ArrayList<>(codeCount);
+        for (int i = 0; i < codeCount; i++) {
+            codes.add(CountryCodeSlots.codeOf(binary.getShort()));
+        }
+        return Collections.unmodifiableList(codes);
+    }
+}
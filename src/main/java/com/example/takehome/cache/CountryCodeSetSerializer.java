@@ -0,0 +1,45 @@
+package com.example.takehome.cache;
+
+import com.example.takehome.catalog.CountryCodeSetKey;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact Ehcache serializer for the country code set keys of the countryDataCache.
+ * A key is written as the catalog snapshot number followed by the words of the set,
+ * which is at most 96 bytes for the 676 code slots.
+ */
+public class CountryCodeSetSerializer implements Serializer<CountryCodeSetKey> {
+
+    /**
+     * Ehcache requires serializers of transient caches to provide this constructor.
+     *
+     * @param classLoader the class loader of the cache, not used
+     */
+    public CountryCodeSetSerializer(ClassLoader classLoader) {
+    }
+
+    @Override
+    public ByteBuffer serialize(CountryCodeSetKey key) throws SerializerException {
+        long[] words = key.toLongArray();
+        ByteBuffer binary = ByteBuffer.allocate(Long.BYTES * (1 + words.length));
+        binary.putLong(key.getCatalogSnapshot());
+        binary.asLongBuffer().put(words);
+        return binary.rewind();
+    }
+
+    @Override
+    public CountryCodeSetKey read(ByteBuffer binary) throws SerializerException {
+        long catalogSnapshot = binary.getLong();
+        long[] words = new long[binary.remaining() / Long.BYTES];
+        binary.asLongBuffer().get(words);
+        return CountryCodeSetKey.of(catalogSnapshot, words);
+    }
+
+    @Override
+    public boolean equals(CountryCodeSetKey key, ByteBuffer binary) throws SerializerException {
+        return key.equals(read(binary));
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.takehome.catalog;
+
+import java.util.BitSet;
+
+/**
+ * The precomputed roster of a continent in the {@link CountryCatalog}.
+ * The countries are a set of {@link CountryCodeSlots} slots; the set is shared by all request threads
+ * and must be treated as read-only, so callers combine it with other sets on a copy.
+ *
+ * @param code the continent code
+ * @param name the continent name
+ * @param countries the slots of all the countries of the continent
+ */
+public record ContinentRoster(String code, String name, BitSet countries) {
+}
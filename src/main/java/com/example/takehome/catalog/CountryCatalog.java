@@ -0,0 +1,268 @@
+package com.example.takehome.catalog;
+
+import com.example.takehome.model.Continent;
+import com.example.takehome.model.Country;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable in-memory snapshot of the continent and country source data.
+ * The catalog is loaded once from the database and shared by all request threads.
+ * A refresh builds a new catalog and swaps it in; an existing catalog is never modified.
+ * The {@link Continent} and {@link Country} objects held by the catalog are detached copies
+ * that are never handed back to JPA, and all of their collections are unmodifiable.
+ * <p>
+ * Countries are indexed by their {@link CountryCodeSlots} slot and every continent roster is
+ * precomputed as a set of slots, so a lookup is an array access and a set operation.
+ * The JSON fragments of the responses are encoded when the catalog is built, see {@link CountryJsonFragments}.
+ * The catalog version is a hash of the data its responses are made of, used to build the entity tags of the responses.
+ * Every catalog gets a new snapshot number, which tells the results of a snapshot from those of the next one.
+ */
+public final class CountryCatalog {
+    /**
+     * The number of bytes of the SHA-256 digests kept in the version and the entity tags, 128 bits.
+     */
+    private static final int DIGEST_LENGTH = 16;
+    private static final AtomicLong SNAPSHOTS = new AtomicLong();
+
+    private final long snapshot = SNAPSHOTS.incrementAndGet();
+    private final List<Continent> continents;
+    private final List<ContinentRoster> continentRosters;
+    private final Country[] countriesBySlot;
+    private final BitSet knownCodes;
+    private final CountryJsonFragments jsonFragments;
+    private final byte[] versionDigest;
+    private final String version;
+
+    private CountryCatalog(List<Continent> continents) {
+        this.continents = List.copyOf(continents);
+        this.countriesBySlot = new Country[CountryCodeSlots.SLOT_COUNT];
+        this.knownCodes = new BitSet(CountryCodeSlots.SLOT_COUNT);
+
+        List<ContinentRoster> rosters = new ArrayList<>(continents.size());
+        for (Continent continent : continents) {
+            BitSet roster = new BitSet(CountryCodeSlots.SLOT_COUNT);
+            for (Country country : continent.getCountries()) {
+                int slot = CountryCodeSlots.slotOf(country.getCode());
+                if (slot != CountryCodeSlots.NO_SLOT) {
+                    countriesBySlot[slot] = country;
+                    roster.set(slot);
+                }
+            }
+            knownCodes.or(roster);
+            rosters.add(new ContinentRoster(continent.getCode(), continent.getName(), roster));
+        }
+        this.continentRosters = List.copyOf(rosters);
+        this.jsonFragments = new CountryJsonFragments(continentRosters);
+        this.versionDigest = computeVersionDigest(continentRosters);
+        this.version = HexFormat.of().formatHex(versionDigest, 0, DIGEST_LENGTH);
+    }
+
+    /**
+     * Builds a catalog from the given countries.
+     * Each country is copied together with its continent; the continent rosters are built from
+     * the given list, so the lazy {@link Continent#getCountries()} collections are never touched.
+     * Countries without a continent are skipped since they can not be part of any response.
+     *
+     * @param countries the countries loaded from the database
+     * @return a new catalog containing copies of the given countries and their continents
+     */
+    public static CountryCatalog of(Collection<Country> countries) {
+        Map<String, Continent> continentsByCode = new HashMap<>();
+        Map<String, List<Country>> countriesByContinentCode = new HashMap<>();
+        countries.stream()
+                .filter(country -> country.getContinent() != null)
+                .forEach(country -> {
+                    Continent continent = country.getContinent();
+                    continentsByCode.putIfAbsent(continent.getCode(), continent);
+                    countriesByContinentCode.computeIfAbsent(continent.getCode(), code -> new ArrayList<>())
+                            .add(country);
+                });
+
+        return new CountryCatalog(copyContinents(continentsByCode.values(), countriesByContinentCode));
+    }
+
+    /**
+     * Builds a catalog from the given continents and their country rosters.
+     *
+     * @param continents the continents with their countries already loaded
+     * @return a new catalog containing copies of the given continents and their countries
+     */
+    public static CountryCatalog ofContinents(Collection<Continent> continents) {
+        Map<String, Continent> continentsByCode = new HashMap<>();
+        Map<String, List<Country>> countriesByContinentCode = new HashMap<>();
+        continents.forEach(continent -> {
+            continentsByCode.putIfAbsent(continent.getCode(), continent);
+            countriesByContinentCode.putIfAbsent(continent.getCode(), continent.getCountries());
+        });
+
+        return new CountryCatalog(copyContinents(continentsByCode.values(), countriesByContinentCode));
+    }
+
+    /**
+     * Copies the given continents and their rosters, both sorted by code so the catalog order is stable.
+     */
+    private static List<Continent> copyContinents(Collection<Continent> continents,
+                                                  Map<String, List<Country>> countriesByContinentCode) {
+        return continents.stream()
+                .sorted(Comparator.comparing(Continent::getCode))
+                .map(source -> {
+                    Continent continent = new Continent(source.getCode(), source.getName(), null);
+                    continent.setCountries(countriesByContinentCode.get(source.getCode()).stream()
+                            .sorted(Comparator.comparing(Country::getCode))
+                            .map(country -> new Country(country.getCode(), country.getName(), continent))
+                            .toList());
+                    return continent;
+                })
+                .toList();
+    }
+
+    /**
+     * Hashes the names and the country rosters of the continents, in catalog order, which is everything a response
+     * is made of: the names of the countries and the codes of the continents are not part of the responses,
+     * so changing them does not change the version.
+     */
+    private static byte[] computeVersionDigest(List<ContinentRoster> continentRosters) {
+        MessageDigest digest = sha256();
+        for (ContinentRoster roster : continentRosters) {
+            // Separate the values so that moving characters or codes between them changes the hash
+            digest.update((roster.name() + '\0').getBytes(StandardCharsets.UTF_8));
+            digest.update(roster.countries().toByteArray());
+            digest.update((byte) 0);
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Returns the countries whose code is present in the provided list.
+     * Codes that are not in the catalog are ignored, duplicates are returned once.
+     *
+     * @param countryCodes the country codes to search for
+     * @return the matching countries, in the order of the first occurrence of their code
+     */
+    public List<Country> findCountriesByCodeIn(Collection<String> countryCodes) {
+        return countryCodes.stream()
+                .distinct()
+                .map(this::findCountry)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Returns the country with the given code.
+     *
+     * @param countryCode the country code, in any case
+     * @return the country, or {@code null} if the code is not in the catalog
+     */
+    public Country findCountry(String countryCode) {
+        int slot = CountryCodeSlots.slotOf(countryCode);
+        return slot == CountryCodeSlots.NO_SLOT ? null : countriesBySlot[slot];
+    }
+
+    /**
+     * Converts the given country codes to a set of slots, keeping only the codes present in the catalog.
+     *
+     * @param countryCodes the country codes, in any case
+     * @return a new set containing the slots of the known codes
+     */
+    public BitSet toCodeSet(Collection<String> countryCodes) {
+        BitSet codeSet = new BitSet(CountryCodeSlots.SLOT_COUNT);
+        for (String countryCode : countryCodes) {
+            int slot = CountryCodeSlots.slotOf(countryCode);
+            if (slot != CountryCodeSlots.NO_SLOT && countriesBySlot[slot] != null) {
+                codeSet.set(slot);
+            }
+        }
+        return codeSet;
+    }
+
+    /**
+     * Removes from the given set the slots of the codes that are not in the catalog.
+     * Since unknown codes are ignored, the result is the canonical form of a request.
+     *
+     * @param codeSet the set of slots to update
+     * @return the given set, for chaining
+     */
+    public BitSet retainKnownCodes(BitSet codeSet) {
+        codeSet.and(knownCodes);
+        return codeSet;
+    }
+
+    /**
+     * @return the continents of the catalog sorted by code, each holding its full country roster
+     */
+    public List<Continent> getContinents() {
+        return continents;
+    }
+
+    /**
+     * @return the precomputed continent rosters, in the same order as {@link #getContinents()}
+     */
+    public List<ContinentRoster> getContinentRosters() {
+        return continentRosters;
+    }
+
+    /**
+     * Returns the strong entity tag of the response to the given canonical code set.
+     * The tag is the SHA-256 digest of the catalog version digest and of the set, truncated to 128 bits,
+     * so it changes when either of them does.
+     *
+     * @param codeSet the canonical set of slots of a request
+     * @return the quoted entity tag
+     */
+    public String eTagOf(BitSet codeSet) {
+        MessageDigest digest = sha256();
+        digest.update(versionDigest);
+        digest.update(codeSet.toByteArray());
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, DIGEST_LENGTH) + "\"";
+    }
+
+    /**
+     * @return the version of the catalog data, a 128-bit hash of the continent names and rosters
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the pre-encoded JSON fragments used to write the responses for this catalog
+     */
+    public CountryJsonFragments getJsonFragments() {
+        return jsonFragments;
+    }
+
+    /**
+     * @return the number of this snapshot, unique in the application
+     */
+    public long getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the number of countries in the catalog
+     */
+    public int size() {
+        return knownCodes.cardinality();
+    }
+}
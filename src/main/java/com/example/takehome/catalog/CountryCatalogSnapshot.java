@@ -0,0 +1,164 @@
+package com.example.takehome.catalog;
+
+import com.example.takehome.model.Continent;
+import com.example.takehome.model.Country;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshot of a {@link CountryCatalog}, read through a memory-mapped file.
+ * The format is, in big-endian order:
+ * <pre>
+ * int      magic "CCAT"
+ * short    format version
+ * byte[16] catalog version
+ * long     creation time, in epoch milliseconds
+ * short    continent count, then for every continent:
+ *          string code, string name, short country count, then for every country: string code, string name
+ * int      CRC-32 of all the previous bytes
+ * </pre>
+ * where a string is a short byte length followed by the UTF-8 bytes.
+ * The checksum is verified and the catalog version is computed again when the snapshot is read,
+ * so a truncated or corrupted file is never served.
+ *
+ * @param catalog the catalog of the snapshot
+ * @param createdAt the time the snapshot was written
+ */
+public record CountryCatalogSnapshot(CountryCatalog catalog, Instant createdAt) {
+    private static final int MAGIC = 0x43434154;
+    private static final short FORMAT_VERSION = 1;
+    private static final int VERSION_LENGTH = 16;
+
+    /**
+     * Writes the snapshot to the given file.
+     * The snapshot is written to a temporary file first and then moved, so readers never see a partial file.
+     *
+     * @param path the snapshot file
+     * @throws IOException if the file can not be written
+     */
+    public void write(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize());
+        buffer.putInt(MAGIC);
+        buffer.putShort(FORMAT_VERSION);
+        buffer.put(HexFormat.of().parseHex(catalog.getVersion()));
+        buffer.putLong(createdAt.toEpochMilli());
+        buffer.putShort((short) catalog.getContinents().size());
+        for (Continent continent : catalog.getContinents()) {
+            putString(buffer, continent.getCode());
+            putString(buffer, continent.getName());
+            buffer.putShort((short) continent.getCountries().size());
+            for (Country country : continent.getCountries()) {
+                putString(buffer, country.getCode());
+                putString(buffer, country.getName());
+            }
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) checksum.getValue());
+        buffer.flip();
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporaryPath = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * Reads a snapshot by memory-mapping the given file.
+     *
+     * @param path the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file can not be read or is not a valid snapshot
+     */
+    public static CountryCatalogSnapshot read(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getShort() != FORMAT_VERSION) {
+                throw new IOException("Not a country catalog snapshot: " + path);
+            }
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.slice(0, buffer.limit() - Integer.BYTES));
+            if ((int) checksum.getValue() != buffer.getInt(buffer.limit() - Integer.BYTES)) {
+                throw new IOException("The country catalog snapshot is corrupted: " + path);
+            }
+            byte[] version = new byte[VERSION_LENGTH];
+            buffer.get(version);
+            Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+
+            int continentCount = buffer.getShort();
+            List<Continent> continents = new ArrayList<>(continentCount);
+            for (int i = 0; i < continentCount; i++) {
+                Continent continent = new Continent(getString(buffer), getString(buffer), null);
+                int countryCount = buffer.getShort();
+                List<Country> countries = new ArrayList<>(countryCount);
+                for (int j = 0; j < countryCount; j++) {
+                    countries.add(new Country(getString(buffer), getString(buffer), continent));
+                }
+                continent.setCountries(countries);
+                continents.add(continent);
+            }
+
+            CountryCatalog catalog = CountryCatalog.ofContinents(continents);
+            if (!catalog.getVersion().equals(HexFormat.of().formatHex(version))) {
+                throw new IOException("The country catalog snapshot is corrupted: " + path);
+            }
+            return new CountryCatalogSnapshot(catalog, createdAt);
+        } catch (RuntimeException e) {
+            // Buffer underflows and invalid UTF-8 of a truncated or corrupted file
+            throw new IOException("The country catalog snapshot is corrupted: " + path, e);
+        }
+    }
+
+    private int encodedSize() {
+        int size = Integer.BYTES + Short.BYTES + VERSION_LENGTH + Long.BYTES + Short.BYTES + Integer.BYTES;
+        for (Continent continent : catalog.getContinents()) {
+            size += stringSize(continent.getCode()) + stringSize(continent.getName()) + Short.BYTES;
+            for (Country country : continent.getCountries()) {
+                size += stringSize(country.getCode()) + stringSize(country.getName());
+            }
+        }
+        return size;
+    }
+
+    private static int stringSize(String value) {
+        return Short.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
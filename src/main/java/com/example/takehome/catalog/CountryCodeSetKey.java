@@ -0,0 +1,81 @@
+package com.example.takehome.catalog;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Immutable cache key of the country data of a request: the canonical set of the requested country code slots,
+ * with the number of the catalog snapshot it was resolved against.
+ * The slots are copied, so a later change of the set of the request can not corrupt a cached entry,
+ * and a result computed from a previous snapshot while the catalog is refreshed is never served for the new one.
+ */
+public final class CountryCodeSetKey implements Serializable {
+    private final long catalogSnapshot;
+    private final long[] codeSlots;
+
+    private CountryCodeSetKey(long catalogSnapshot, long[] codeSlots) {
+        this.catalogSnapshot = catalogSnapshot;
+        this.codeSlots = codeSlots;
+    }
+
+    /**
+     * Creates the key of a set of slots resolved against a catalog.
+     *
+     * @param catalog the catalog snapshot of the request
+     * @param codeSet the canonical slots of the requested country codes, see {@link CountryCatalog#retainKnownCodes(BitSet)}
+     * @return the key, holding a copy of the slots
+     */
+    public static CountryCodeSetKey of(CountryCatalog catalog, BitSet codeSet) {
+        return new CountryCodeSetKey(catalog.getSnapshot(), codeSet.toLongArray());
+    }
+
+    /**
+     * Recreates a key from its parts, as read back from a serialized form.
+     *
+     * @param catalogSnapshot the number of the catalog snapshot
+     * @param codeSlots the words of the set of slots, as returned by {@link BitSet#toLongArray()}; the array is not copied
+     * @return the key
+     */
+    public static CountryCodeSetKey of(long catalogSnapshot, long[] codeSlots) {
+        return new CountryCodeSetKey(catalogSnapshot, codeSlots);
+    }
+
+    /**
+     * @return the number of the catalog snapshot the slots were resolved against
+     */
+    public long getCatalogSnapshot() {
+        return catalogSnapshot;
+    }
+
+    /**
+     * @return a copy of the slots, as a new set
+     */
+    public BitSet toCodeSet() {
+        return BitSet.valueOf(codeSlots);
+    }
+
+    /**
+     * @return a copy of the words of the set of slots
+     */
+    public long[] toLongArray() {
+        return codeSlots.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CountryCodeSetKey key
+                && catalogSnapshot == key.catalogSnapshot
+                && Arrays.equals(codeSlots, key.codeSlots);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(catalogSnapshot) + Arrays.hashCode(codeSlots);
+    }
+
+    @Override
+    public String toString() {
+        return "CountryCodeSetKey[catalogSnapshot=" + catalogSnapshot + ", codeSlots=" + BitSet.valueOf(codeSlots) + "]";
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.takehome.catalog;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Maps two-letter country codes to dense integer slots of a 26x26 table.
+ * The slot of a code is {@code (first - 'A') * 26 + (second - 'A')}, so iterating the slots in
+ * ascending order yields the codes in alphabetical order.
+ * Sets of country codes are represented as a {@link BitSet} indexed by slot.
+ */
+public final class CountryCodeSlots {
+    /**
+     * The number of slots, one for every combination of two letters.
+     */
+    public static final int SLOT_COUNT = 26 * 26;
+
+    /**
+     * Returned for codes that are not made of two letters.
+     */
+    public static final int NO_SLOT = -1;
+
+    /**
+     * The upper case code of every slot, created once so that converting slots back to codes does not allocate.
+     */
+    private static final String[] CODES = new String[SLOT_COUNT];
+
+    static {
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            CODES[slot] = new String(new char[] {(char) ('A' + slot / 26), (char) ('A' + slot % 26)});
+        }
+    }
+
+    private CountryCodeSlots() {
+    }
+
+    /**
+     * Returns the index of a letter in the alphabet, ignoring case.
+     *
+     * @param letter the letter
+     * @return the index of the letter between 0 and 25, or {@link #NO_SLOT} if the character is not a letter
+     */
+    public static int letterIndex(char letter) {
+        // Folding to lower case with a single bit works for ASCII letters only, which is checked right after
+        int index = (letter | 0x20) - 'a';
+        return index >= 0 && index < 26 ? index : NO_SLOT;
+    }
+
+    /**
+     * Returns the slot of the code made of the two given letters, ignoring case.
+     *
+     * @param first the first letter of the code
+     * @param second the second letter of the code
+     * @return the slot of the code, or {@link #NO_SLOT} if one of the characters is not a letter
+     */
+    public static int slotOf(char first, char second) {
+        int firstIndex = letterIndex(first);
+        int secondIndex = letterIndex(second);
+        return firstIndex == NO_SLOT || secondIndex == NO_SLOT ? NO_SLOT : firstIndex * 26 + secondIndex;
+    }
+
+    /**
+     * Returns the slot of the given code, ignoring case.
+     *
+     * @param code the country code
+     * @return the slot of the code, or {@link #NO_SLOT} if the code is not made of two letters
+     */
+    public static int slotOf(String code) {
+        return code == null || code.length() != 2 ? NO_SLOT : slotOf(code.charAt(0), code.charAt(1));
+    }
+
+    /**
+     * Returns the upper case code of the given slot.
+     *
+     * @param slot the slot
+     * @return the country code of the slot
+     */
+    public static String codeOf(int slot) {
+        return CODES[slot];
+    }
+
+    /**
+     * Returns the codes of all the slots set in the given set, in alphabetical order.
+     *
+     * @param codeSet the set of slots
+     * @return the list of upper case country codes
+     */
+    public static List<String> toCodes(BitSet codeSet) {
+        List<String> codes = new ArrayList<>(codeSet.cardinality());
+        for (int slot = codeSet.nextSetBit(0); slot >= 0; slot = codeSet.nextSetBit(slot + 1)) {
+            codes.add(CODES[slot]);
+        }
+        return codes;
+    }
+}
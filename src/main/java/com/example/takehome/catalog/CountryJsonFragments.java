@@ -0,0 +1,136 @@
+package com.example.takehome.catalog;
+
+import com.example.takehome.dto.ContinentCountryData;
+import com.example.takehome.dto.batch.CountryBatchResult;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-encoded UTF-8 JSON fragments used to write the country data responses without Jackson.
+ * The vocabulary of a response is small and fixed: the continent names of the catalog and the country codes,
+ * so every piece of a response is encoded once when the catalog is loaded and a response is written
+ * by copying these bytes to the output stream.
+ * The output is the same JSON Jackson produces for a list of {@link ContinentCountryData}.
+ */
+public final class CountryJsonFragments {
+    private static final byte[] CONTINENT_START = "{\"countries\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CONTINENT_END = "]}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] QUERY_FIELD = "\"query\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CONTINENTS_FIELD = "\"continents\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ERROR_FIELD = "\"error\":".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The {@code ,"XX"} fragment of every slot; the first code of an array is written without the comma.
+     */
+    private static final byte[][] CODES = new byte[CountryCodeSlots.SLOT_COUNT][];
+
+    static {
+        for (int slot = 0; slot < CountryCodeSlots.SLOT_COUNT; slot++) {
+            CODES[slot] = (",\"" + CountryCodeSlots.codeOf(slot) + "\"").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The {@code ],"name":"...","otherCountries":[} fragment of every continent, by continent name.
+     */
+    private final Map<String, byte[]> continentNames = new HashMap<>();
+
+    /**
+     * Encodes the fragments of the given continents.
+     *
+     * @param continentRosters the continents of the catalog
+     */
+    CountryJsonFragments(List<ContinentRoster> continentRosters) {
+        continentRosters.forEach(roster -> continentNames.put(roster.name(), encodeName(roster.name())));
+    }
+
+    /**
+     * Writes the JSON array of the given continents to the output stream.
+     *
+     * @param continentCountries the continents to write
+     * @param outputStream the stream to write to, it is not flushed nor closed
+     * @throws IOException if the stream can not be written
+     */
+    public void write(List<ContinentCountryData> continentCountries, OutputStream outputStream) throws IOException {
+        outputStream.write('[');
+        for (int i = 0; i < continentCountries.size(); i++) {
+            ContinentCountryData continentCountryData = continentCountries.get(i);
+            if (i > 0) {
+                outputStream.write(',');
+            }
+            outputStream.write(CONTINENT_START);
+            writeCodes(continentCountryData.getCountries(), outputStream);
+            byte[] name = continentNames.get(continentCountryData.getName());
+            // A result cached before a catalog refresh may name a continent that is not in the catalog anymore
+            outputStream.write(name != null ? name : encodeName(continentCountryData.getName()));
+            writeCodes(continentCountryData.getOtherCountries(), outputStream);
+            outputStream.write(CONTINENT_END);
+        }
+        outputStream.write(']');
+    }
+
+    /**
+     * Writes a batch result as a JSON object, omitting the null fields like Jackson does for {@link CountryBatchResult}.
+     *
+     * @param result the result to write
+     * @param outputStream the stream to write to, it is not flushed nor closed
+     * @throws IOException if the stream can not be written
+     */
+    public void write(CountryBatchResult result, OutputStream outputStream) throws IOException {
+        outputStream.write('{');
+        boolean first = true;
+        if (result.getQuery() != null) {
+            outputStream.write(QUERY_FIELD);
+            outputStream.write(encodeString(result.getQuery()));
+            first = false;
+        }
+        if (result.getContinents() != null) {
+            if (!first) {
+                outputStream.write(',');
+            }
+            outputStream.write(CONTINENTS_FIELD);
+            write(result.getContinents(), outputStream);
+            first = false;
+        }
+        if (result.getError() != null) {
+            if (!first) {
+                outputStream.write(',');
+            }
+            outputStream.write(ERROR_FIELD);
+            outputStream.write(encodeString(result.getError()));
+        }
+        outputStream.write('}');
+    }
+
+    private static void writeCodes(List<String> codes, OutputStream outputStream) throws IOException {
+        for (int i = 0; i < codes.size(); i++) {
+            int slot = CountryCodeSlots.slotOf(codes.get(i));
+            byte[] code = slot != CountryCodeSlots.NO_SLOT ? CODES[slot] : encodeCode(codes.get(i));
+            // Skip the leading comma for the first code
+            int offset = i == 0 ? 1 : 0;
+            outputStream.write(code, offset, code.length - offset);
+        }
+    }
+
+    private static byte[] encodeName(String name) {
+        return ("],\"name\":\"" + quote(name) + "\",\"otherCountries\":[").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encodeCode(String code) {
+        return (",\"" + quote(code) + "\"").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encodeString(String value) {
+        return ("\"" + quote(value) + "\"").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String quote(String value) {
+        return new String(JsonStringEncoder.getInstance().quoteAsString(value));
+    }
+}
@@ -1,25 +1,45 @@
 package com.example.takehome.config;
 
 import com.example.takehome.repository.UserRepository;
+import com.example.takehome.service.UserPasswordUpgradeService;
+import com.example.takehome.util.BCryptStrengthCalibrator;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
 /**
  Configuration class for implementing  Spring Security authentication.
  */
+@Slf4j
 @Configuration
 @RequiredArgsConstructor
 public class ApplicationConfig {
     private final UserRepository userRepository;
+    private final UserPasswordUpgradeService userPasswordUpgradeService;
+
+    /**
+     The duration of a password check the bcrypt strength is calibrated for, configured in application properties.
+     */
+    @Value("${auth.password-hashing.target-duration:200ms}")
+    private Duration passwordHashingTargetDuration;
+
+    @Value("${auth.password-hashing.min-strength:10}")
+    private int passwordHashingMinStrength;
+
+    @Value("${auth.password-hashing.max-strength:14}")
+    private int passwordHashingMaxStrength;
 
     /**
      Creates a user details service bean.
@@ -42,27 +62,32 @@ public class ApplicationConfig {
 
         // Set the password encoder
         daoAuthProvider.setPasswordEncoder(passwordEncoder());
+        // Rehash the passwords stored with a lower strength than the calibrated one on login
+        daoAuthProvider.setUserDetailsPasswordService(userPasswordUpgradeService);
 
         return daoAuthProvider;
     }
 
     /**
-     Creates a password encoder bean.
+     Creates a password encoder bean, with the bcrypt strength calibrated for the target duration
+     of a password check on this hardware, see {@link BCryptStrengthCalibrator}.
      @return password encoder
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int strength = BCryptStrengthCalibrator.calibrateStrength(
+                passwordHashingTargetDuration, passwordHashingMinStrength, passwordHashingMaxStrength);
+        log.info("Using bcrypt strength " + strength + " for a password check of at most " + passwordHashingTargetDuration);
+        return new BCryptPasswordEncoder(strength);
     }
 
     /**
-     Creates an authentication manager bean.
-     @param config authentication configuration
+     Creates an authentication manager bean, built directly on the authentication provider
+     so that it is available in both the servlet and the reactive serving modes.
      @return authentication manager
-     @throws Exception if an error occurs
      */
     @Bean
-    public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
-        return config.getAuthenticationManager();
+    public AuthenticationManager authenticationManager() {
+        return new ProviderManager(authenticationProvider());
     }
 }
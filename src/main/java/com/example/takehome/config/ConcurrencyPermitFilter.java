@@ -0,0 +1,143 @@
+package com.example.takehome.config;
+
+import com.example.takehome.exception.ConcurrencyLimitExceededException;
+import com.example.takehome.exception.ErrorMessage;
+import com.example.takehome.exception.GlobalExceptionHandler;
+import com.example.takehome.ratelimit.AdaptiveConcurrencyLimiter;
+import com.example.takehome.service.ConcurrencyLimitService;
+import com.example.takehome.util.SampledLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ Filter applying the adaptive concurrency limit to all the countries endpoints, see {@link ConcurrencyLimitService}:
+ the permit is taken before the request reaches the security chain and the controllers, so no endpoint bypasses the limit,
+ and released once the rest of the chain is done. The response body is written by then, so the latency sampled by the limit
+ includes the serialization and the writing of the response, which grow under load. The batches and the streams hold
+ a permit too, but their latency depends on their size and is not sampled.
+ The requests over the limit are answered 503 Service Unavailable here, and logged once per interval.
+ A request in asynchronous mode keeps its permit until the dispatch which completes it.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ConcurrencyPermitFilter extends OncePerRequestFilter {
+    private static final String PUBLIC_COUNTRIES_PATH = "/api/v1/public/countries/";
+    private static final String PRIVATE_COUNTRIES_PATH = "/api/v1/private/countries/";
+    private static final String PRIVATE_BATCH_PATH = "/api/v1/private/countries/batch";
+    private static final String PRIVATE_STREAM_PATH = "/api/v1/private/countries/stream";
+
+    private final ConcurrencyLimitService concurrencyLimitService;
+    private final ObjectMapper objectMapper;
+    private final SampledLog sheddingLog;
+
+    /**
+     Creates the filter.
+     @param concurrencyLimitService the adaptive concurrency limit
+     @param objectMapper the mapper encoding the error messages
+     @param sheddingLogInterval the minimum time between two logged shed requests, configured in application properties
+     */
+    public ConcurrencyPermitFilter(ConcurrencyLimitService concurrencyLimitService,
+                                   ObjectMapper objectMapper,
+                                   @Value("${countries.rate-limit.rejection-log-interval:10s}") Duration sheddingLogInterval) {
+        this.concurrencyLimitService = concurrencyLimitService;
+        this.objectMapper = objectMapper;
+        this.sheddingLog = new SampledLog(sheddingLogInterval);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = pathWithinApplication(request);
+        return !path.startsWith(PUBLIC_COUNTRIES_PATH) && !path.startsWith(PRIVATE_COUNTRIES_PATH);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    /**
+     Takes a permit for the request, runs the rest of the chain, then releases the permit;
+     answers 503 Service Unavailable if the limit of the requests in flight is reached.
+     @param request http request
+     @param response http response
+     @param filterChain filter chain
+     @throws ServletException servlet exception
+     @throws IOException io exception
+     */
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        // An asynchronous dispatch completes the request which took the permit
+        if (!isAsyncDispatch(request)) {
+            try {
+                request.setAttribute(ConcurrencyLimitService.PERMIT_ATTRIBUTE, concurrencyLimitService.acquire());
+            } catch (ConcurrencyLimitExceededException e) {
+                shed(request, response, e);
+                return;
+            }
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!request.isAsyncStarted()
+                    && request.getAttribute(ConcurrencyLimitService.PERMIT_ATTRIBUTE) instanceof AdaptiveConcurrencyLimiter.Permit permit) {
+                request.removeAttribute(ConcurrencyLimitService.PERMIT_ATTRIBUTE);
+                String path = pathWithinApplication(request);
+                if (path.equals(PRIVATE_BATCH_PATH) || path.equals(PRIVATE_STREAM_PATH)) {
+                    permit.releaseUnsampled();
+                } else {
+                    permit.release();
+                }
+            }
+        }
+    }
+
+    /**
+     Answers 503 Service Unavailable to a request over the concurrency limit.
+     @param request http request
+     @param response http response
+     @param ex the exception of the limit
+     @throws IOException io exception
+     */
+    private void shed(HttpServletRequest request, HttpServletResponse response, ConcurrencyLimitExceededException ex)
+            throws IOException {
+        long shed = sheddingLog.sample();
+        if (shed > 0) {
+            log.error(ex.getMessage() + ", " + shed + " requests shed since the last report");
+        }
+        byte[] body = objectMapper.writeValueAsBytes(new ErrorMessage(HttpStatus.SERVICE_UNAVAILABLE.value(), new Date(),
+                GlobalExceptionHandler.SERVICE_OVERLOADED_MESSAGE, "uri=" + pathWithinApplication(request)));
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        // The limit adapts within a second
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static String pathWithinApplication(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.takehome.config;
+
+import com.example.takehome.dto.ContinentCountryData;
+import com.example.takehome.service.CountryService;
+import com.example.takehome.service.PipelineStageTimers;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ Message converter writing the country data responses from the pre-encoded JSON fragments of the catalog
+ instead of serializing the {@link ContinentCountryData} objects with Jackson.
+ It only handles {@code List<ContinentCountryData>} responses and never reads request bodies.
+ Spring Boot registers every converter bean in front of the default ones, so it takes precedence over Jackson.
+ The writing of the body is timed as the serialization stage of the endpoint set by the handler in the
+ {@link PipelineStageTimers#ENDPOINT_ATTRIBUTE} request attribute; the bodies of the other handlers are not timed.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ContinentCountryDataHttpMessageConverter
+        extends AbstractGenericHttpMessageConverter<List<ContinentCountryData>> {
+    private final CountryService countryService;
+    private final PipelineStageTimers pipelineStageTimers;
+
+    /**
+     Creates the converter for JSON responses.
+     @param countryService service providing the current catalog
+     @param pipelineStageTimers the timers of the stages of the country lookup
+     */
+    public ContinentCountryDataHttpMessageConverter(CountryService countryService, PipelineStageTimers pipelineStageTimers) {
+        super(MediaType.APPLICATION_JSON);
+        this.countryService = countryService;
+        this.pipelineStageTimers = pipelineStageTimers;
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    /**
+     Accepts only lists of {@link ContinentCountryData}, all the other lists are left to Jackson.
+     */
+    @Override
+    public boolean canWrite(Type type, @NonNull Class<?> clazz, MediaType mediaType) {
+        if (type == null || !canWrite(mediaType)) {
+            return false;
+        }
+        ResolvableType resolvableType = ResolvableType.forType(type);
+        return List.class.isAssignableFrom(resolvableType.toClass())
+                && resolvableType.getGeneric(0).toClass() == ContinentCountryData.class;
+    }
+
+    @Override
+    public boolean canRead(@NonNull Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(@NonNull Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected void writeInternal(@NonNull List<ContinentCountryData> continentCountries, Type type,
+                                 @NonNull HttpOutputMessage outputMessage) throws IOException {
+        long start = System.nanoTime();
+        countryService.getCountryCatalog().getJsonFragments().write(continentCountries, outputMessage.getBody());
+        String endpoint = currentEndpoint();
+        if (endpoint != null) {
+            pipelineStageTimers.record(PipelineStageTimers.SERIALIZATION, endpoint, PipelineStageTimers.NO_CACHE,
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     @return the endpoint set by the handler of the current request, null if it set none
+     */
+    private static String currentEndpoint() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        return requestAttributes == null ? null
+                : (String) requestAttributes.getAttribute(PipelineStageTimers.ENDPOINT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    @NonNull
+    public List<ContinentCountryData> read(@NonNull Type type, Class<?> contextClass,
+                                           @NonNull HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Country data can not be read by this converter", inputMessage);
+    }
+
+    @Override
+    @NonNull
+    protected List<ContinentCountryData> readInternal(@NonNull Class<? extends List<ContinentCountryData>> clazz,
+                                                      @NonNull HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Country data can not be read by this converter", inputMessage);
+    }
+}
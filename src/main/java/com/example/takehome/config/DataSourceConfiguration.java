@@ -0,0 +1,87 @@
+package com.example.takehome.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Configuration class for the data sources: the primary database configured by the spring.datasource properties,
+ and the optional read replicas configured by the datasource.replicas properties.
+ The read-only transactions are sent to the replicas, see {@link ReadReplicaRoutingDataSource};
+ without replicas, all the connections come from the primary.
+ */
+@Configuration
+public class DataSourceConfiguration {
+
+    /**
+     Creates the connection pool of the primary database.
+     @param properties the spring.datasource properties
+     @return the primary data source
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     Creates the connection pools of the read replicas and the data source routing between them and the primary.
+     The replicas use the credentials of the primary and read-only connections.
+     @param properties the spring.datasource properties
+     @param primaryDataSource the primary data source
+     @param replicaUrls the JDBC URLs of the read replicas, possibly none
+     @param maximumPoolSize the maximum number of connections of each replica
+     @param connectionTimeout the maximum wait for a replica connection before the replica is considered unavailable
+     @param retryAfter the delay before an unavailable replica is used again
+     @param maxLag the maximum replication lag of a replica used for reads
+     @return the routing data source
+     */
+    @Bean
+    public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(DataSourceProperties properties,
+                                                                     HikariDataSource primaryDataSource,
+                                                                     @Value("${datasource.replicas.urls:}") List<String> replicaUrls,
+                                                                     @Value("${datasource.replicas.maximum-pool-size:5}") int maximumPoolSize,
+                                                                     @Value("${datasource.replicas.connection-timeout:2s}") Duration connectionTimeout,
+                                                                     @Value("${datasource.replicas.retry-after:30s}") Duration retryAfter,
+                                                                     @Value("${datasource.replicas.max-lag:10s}") Duration maxLag) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String replicaUrl : replicaUrls) {
+            if (replicaUrl.isBlank()) {
+                continue;
+            }
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(replicaUrl.trim())
+                    .build();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReadReplicaRoutingDataSource(primaryDataSource, replicas, retryAfter, maxLag);
+    }
+
+    /**
+     Creates the data source of the application, used by JPA and Flyway.
+     The connections are requested lazily, when the first statement runs, so that the routing
+     knows whether the transaction is read-only.
+     @param readReplicaRoutingDataSource the routing data source
+     @return the data source of the application
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readReplicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.takehome.config;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ Configuration class for the Hibernate second-level cache.
+ Hibernate uses the JCache cache manager of the application, so the entity regions are configured
+ in ehcache.xml together with the other caches.
+ */
+@Configuration
+public class HibernateCacheConfiguration {
+
+    /**
+     Passes the cache manager of the application to Hibernate.
+     @param cacheManager the JCache cache manager of the application
+     @return the customizer of the Hibernate properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateSecondLevelCacheCustomizer(JCacheCacheManager cacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager.getCacheManager());
+    }
+}
@@ -1,16 +1,17 @@
 package com.example.takehome.config;
 
+import com.example.takehome.service.CachedUserDetailsService;
 import com.example.takehome.service.JwtTokenService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -19,12 +20,22 @@ import java.io.IOException;
 
 /**
  Filter class for handling JWT authentication.
+ The principal and the authorities of the request are built from the claims of the token,
+ the user is only loaded for the tokens issued without them.
+ The asynchronous dispatches are authenticated too: a request waiting for a permit of the rate limiter
+ is only authenticated once it is dispatched again, see {@link RateLimitingFilter}.
  */
 @Component
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtTokenService jwtTokenService;
-    public final UserDetailsService userDetailService;
+    private final CachedUserDetailsService userDetailService;
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
 
     /**
      Filters the request and checks if the request contains a valid JWT token.
@@ -49,23 +60,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        // Get jwtToken from http request header
+        // Get jwtToken from http request header, verify its signature once and read its claims,
+        // unless the rate limiting filter has verified it already
         jwtToken = authHeader.substring(7);
-        userEmail = jwtTokenService.extractUserName(jwtToken);
+        JwtTokenService.VerifiedToken verifiedToken =
+                request.getAttribute(RateLimitingFilter.VERIFIED_TOKEN_ATTRIBUTE) instanceof JwtTokenService.VerifiedToken token
+                        ? token
+                        : jwtTokenService.verifyToken(jwtToken);
+        userEmail = verifiedToken.userName();
 
         // user is not authenticated yet, but we have a token and try to will authenticate him now
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // Load user from DB by email
-            UserDetails userDetails = userDetailService.loadUserByUsername(userEmail);
-
-            // Check if the token can be decoded with our secret key and
-            // if the user from DB matches the user from the token and
-            // if the token is not expired
-            if (jwtTokenService.isTokenValid(jwtToken, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
+            UsernamePasswordAuthenticationToken authToken = null;
+            if (verifiedToken.hasUserClaims()) {
+                // The user id and roles are verified claims of the token, the database is not queried
+                if (!verifiedToken.isExpired()) {
+                    authToken = new UsernamePasswordAuthenticationToken(
+                            verifiedToken.toPrincipal(), null, verifiedToken.authorities());
+                }
+            } else {
+                // Token issued without the user claims: load the user by email, from the cache when possible,
+                // and check if the user matches the user from the token and if the token is not expired
+                UserDetails userDetails = userDetailService.loadUserByUsername(userEmail);
+                if (jwtTokenService.isTokenValid(verifiedToken, userDetails)) {
+                    authToken = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                }
+            }
 
+            if (authToken != null) {
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 // setting this token in the context means that the user becomes authenticated
@@ -0,0 +1,84 @@
+package com.example.takehome.config;
+
+import com.example.takehome.service.CachedUserDetailsService;
+import com.example.takehome.service.JwtTokenService;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ Reactive counterpart of {@link JwtAuthenticationFilter}, used by the reactive security chain.
+ It extracts the JWT token from the "Authorization" bearer header and authenticates the user it was issued to.
+ The principal is built from the claims of the token; the tokens issued without them need a blocking user lookup,
+ which runs on the bounded elastic scheduler and never on the Netty event loop.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class JwtReactiveAuthenticationManager implements ReactiveAuthenticationManager, ServerAuthenticationConverter {
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtTokenService jwtTokenService;
+    private final CachedUserDetailsService userDetailService;
+
+    /**
+     Converts the "Authorization" bearer header of the request to an unauthenticated token.
+     @param exchange the current exchange
+     @return the token holding the JWT token as credentials, or empty if there is no bearer header
+     */
+    @Override
+    public Mono<Authentication> convert(ServerWebExchange exchange) {
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
+            // No auth bearer token header, continue with default behavior
+            return Mono.empty();
+        }
+        String jwtToken = authHeader.substring(BEARER_PREFIX.length());
+        return Mono.just(new UsernamePasswordAuthenticationToken(jwtToken, jwtToken));
+    }
+
+    /**
+     Authenticates the user of the JWT token held as credentials.
+     @param authentication the token created by {@link #convert(ServerWebExchange)}
+     @return the authenticated token of the user
+     */
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        String jwtToken = (String) authentication.getCredentials();
+        JwtTokenService.VerifiedToken verifiedToken;
+        try {
+            verifiedToken = jwtTokenService.verifyToken(jwtToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Mono.error(new BadCredentialsException("Invalid JWT token", e));
+        }
+
+        if (verifiedToken.hasUserClaims()) {
+            // The user id and roles are verified claims of the token, the database is not queried
+            if (verifiedToken.isExpired()) {
+                return Mono.error(new BadCredentialsException("Invalid JWT token"));
+            }
+            return Mono.just(new UsernamePasswordAuthenticationToken(
+                    verifiedToken.toPrincipal(), null, verifiedToken.authorities()));
+        }
+
+        return Mono.<Authentication>fromCallable(() -> {
+            // Load user by email, then check that the token was issued to this user and is not expired
+            UserDetails userDetails = userDetailService.loadUserByUsername(verifiedToken.userName());
+            if (!jwtTokenService.isTokenValid(verifiedToken, userDetails)) {
+                throw new BadCredentialsException("Invalid JWT token");
+            }
+            return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.takehome.config;
+
+import com.example.takehome.exception.ErrorMessage;
+import com.example.takehome.exception.GlobalExceptionHandler;
+import com.example.takehome.ratelimit.FairWaitingQueue;
+import com.example.takehome.service.ClientRateLimitService;
+import com.example.takehome.service.JwtTokenService;
+import com.example.takehome.service.RateLimitWaitingService;
+import com.example.takehome.util.SampledLog;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ Filter applying the per client rate limiters of the countries endpoints before any other filter, the security chain included,
+ so a rejected request costs a permit check and a pre-encoded response: the 429 body is encoded once per second at most,
+ with the Retry-After header computed from the bucket of the client, and the rejections are logged once per interval.
+ The public endpoint is limited by remote address. The private endpoints are limited by the user of the token, verified here
+ (from the cache of the verified tokens) and passed to {@link JwtAuthenticationFilter}; the requests without a valid token
+ are left to the security chain. The batch endpoint is charged by the weight of its body, in the controller.
+ <p>
+ When waiting is enabled ({@link RateLimitWaitingService}), the requests of the private endpoints over the limit wait
+ for a permit instead: the request is put in asynchronous mode, so it releases its container thread while it waits,
+ and is dispatched again through the filters once it got its permit; this filter skips the asynchronous dispatches.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RateLimitingFilter extends OncePerRequestFilter {
+    /**
+     The request attribute holding the token verified by this filter.
+     */
+    public static final String VERIFIED_TOKEN_ATTRIBUTE = RateLimitingFilter.class.getName() + ".verifiedToken";
+
+    private static final String PUBLIC_COUNTRIES_PATH = "/api/v1/public/countries/";
+    private static final String PRIVATE_COUNTRIES_PATH = "/api/v1/private/countries/";
+    private static final String PRIVATE_BATCH_PATH = "/api/v1/private/countries/batch";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final ClientRateLimitService clientRateLimitService;
+    private final RateLimitWaitingService rateLimitWaitingService;
+    private final JwtTokenService jwtTokenService;
+    private final ObjectMapper objectMapper;
+    private final SampledLog rejectionLog;
+    private final EncodedRejection publicRejection = new EncodedRejection("uri=/api/v1/public/countries");
+    private final EncodedRejection privateRejection = new EncodedRejection("uri=/api/v1/private/countries");
+
+    /**
+     Creates the filter.
+     @param clientRateLimitService the per client rate limiters
+     @param rateLimitWaitingService the waiting for the permits of the private endpoints, if enabled
+     @param jwtTokenService the verification of the tokens of the private endpoints
+     @param objectMapper the mapper encoding the error messages
+     @param rejectionLogInterval the minimum time between two logged rejections, configured in application properties
+     */
+    public RateLimitingFilter(ClientRateLimitService clientRateLimitService,
+                              ObjectProvider<RateLimitWaitingService> rateLimitWaitingService,
+                              JwtTokenService jwtTokenService,
+                              ObjectMapper objectMapper,
+                              @Value("${countries.rate-limit.rejection-log-interval:10s}") Duration rejectionLogInterval) {
+        this.clientRateLimitService = clientRateLimitService;
+        this.rateLimitWaitingService = rateLimitWaitingService.getIfAvailable();
+        this.jwtTokenService = jwtTokenService;
+        this.objectMapper = objectMapper;
+        this.rejectionLog = new SampledLog(rejectionLogInterval);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = pathWithinApplication(request);
+        return !path.startsWith(PUBLIC_COUNTRIES_PATH)
+                && !(path.startsWith(PRIVATE_COUNTRIES_PATH) && !path.equals(PRIVATE_BATCH_PATH));
+    }
+
+    /**
+     Lets the request through if its client has a permit left, otherwise answers 429 Too Many Requests,
+     or lets the request wait for a permit when waiting is enabled for its endpoint.
+     @param request http request
+     @param response http response
+     @param filterChain filter chain
+     @throws ServletException servlet exception
+     @throws IOException io exception
+     */
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        String rateLimiterName;
+        String clientKey;
+        EncodedRejection rejection;
+        if (pathWithinApplication(request).startsWith(PUBLIC_COUNTRIES_PATH)) {
+            rateLimiterName = ClientRateLimitService.NON_AUTH_RATE_LIMITER;
+            clientKey = request.getRemoteAddr();
+            rejection = publicRejection;
+        } else {
+            JwtTokenService.VerifiedToken verifiedToken = verifyToken(request);
+            if (verifiedToken == null) {
+                // Rejected by the security chain
+                filterChain.doFilter(request, response);
+                return;
+            }
+            request.setAttribute(VERIFIED_TOKEN_ATTRIBUTE, verifiedToken);
+            rateLimiterName = ClientRateLimitService.AUTH_RATE_LIMITER;
+            clientKey = verifiedToken.userName();
+            rejection = privateRejection;
+        }
+
+        if (clientRateLimitService.tryAcquirePermission(rateLimiterName, clientKey, 1)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (rejection == privateRejection && rateLimitWaitingService != null && request.isAsyncSupported()) {
+            awaitPermission(request, response, clientKey);
+            return;
+        }
+        reject(response, rateLimiterName, clientKey, rejection);
+    }
+
+    /**
+     Lets a request of the private endpoints wait for a permit without holding its thread:
+     it is dispatched again once it got its permit, or answered 429 at the end of the maximum wait.
+     @param request http request
+     @param response http response
+     @param clientKey the user of the request
+     @throws IOException io exception
+     */
+    private void awaitPermission(HttpServletRequest request, HttpServletResponse response, String clientKey) throws IOException {
+        AsyncContext asyncContext = request.startAsync(request, response);
+        // The queue answers the request at the end of the maximum wait, the container timeout is a safety net
+        asyncContext.setTimeout(rateLimitWaitingService.getMaxWait().plusSeconds(5).toMillis());
+        AtomicReference<FairWaitingQueue.WaitingCall> waitingCall = new AtomicReference<>();
+        // Registered before queueing, the request may be granted at once
+        asyncContext.addListener(new WaitingCallListener(waitingCall, response, clientKey));
+        waitingCall.set(rateLimitWaitingService.await(clientKey, asyncContext::dispatch, () -> {
+            try {
+                reject(response, ClientRateLimitService.AUTH_RATE_LIMITER, clientKey, privateRejection);
+            } catch (IOException e) {
+                log.debug("Error rejecting a waiting request", e);
+            } finally {
+                asyncContext.complete();
+            }
+        }));
+        if (waitingCall.get() == null) {
+            try {
+                reject(response, ClientRateLimitService.AUTH_RATE_LIMITER, clientKey, privateRejection);
+            } finally {
+                asyncContext.complete();
+            }
+        }
+    }
+
+    /**
+     Answers 429 Too Many Requests with the pre-encoded body of the endpoint.
+     @param response http response
+     @param rateLimiterName the name of the rate limiter
+     @param clientKey the client of the request
+     @param rejection the body of the endpoint
+     @throws IOException io exception
+     */
+    private void reject(HttpServletResponse response, String rateLimiterName, String clientKey, EncodedRejection rejection)
+            throws IOException {
+        long rejected = rejectionLog.sample();
+        if (rejected > 0) {
+            log.error("Too many requests to the API, " + rejected + " requests rejected since the last report");
+        }
+        Duration retryAfter = clientRateLimitService.retryAfter(rateLimiterName, clientKey);
+        byte[] body = rejection.body(objectMapper);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (retryAfter.toMillis() + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     Verifies the bearer token of the request.
+     @param request http request
+     @return the verified token, or null if the request has no valid token
+     */
+    private JwtTokenService.VerifiedToken verifyToken(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        try {
+            JwtTokenService.VerifiedToken verifiedToken = jwtTokenService.verifyToken(authHeader.substring(BEARER_PREFIX.length()));
+            return verifiedToken.userName() == null || verifiedToken.isExpired() ? null : verifiedToken;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String pathWithinApplication(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /**
+     The 429 body of an endpoint, encoded again when the second of its timestamp has passed.
+     */
+    private static final class EncodedRejection {
+        private final String description;
+        private volatile Encoded encoded = new Encoded(Long.MIN_VALUE, null);
+
+        private EncodedRejection(String description) {
+            this.description = description;
+        }
+
+        private byte[] body(ObjectMapper objectMapper) {
+            long epochSecond = System.currentTimeMillis() / 1000;
+            Encoded current = encoded;
+            if (current.epochSecond() == epochSecond) {
+                return current.body();
+            }
+            ErrorMessage message = new ErrorMessage(HttpStatus.TOO_MANY_REQUESTS.value(), new Date(epochSecond * 1000),
+                    GlobalExceptionHandler.TOO_MANY_REQUESTS_MESSAGE, description);
+            try {
+                byte[] body = objectMapper.writeValueAsBytes(message);
+                encoded = new Encoded(epochSecond, body);
+                return body;
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private record Encoded(long epochSecond, byte[] body) {
+        }
+    }
+
+    /**
+     Removes a waiting request from the queue when its client went away or the container timed it out,
+     so it never takes a permit; a request timed out is answered 429.
+     */
+    private final class WaitingCallListener implements AsyncListener {
+        private final AtomicReference<FairWaitingQueue.WaitingCall> waitingCall;
+        private final HttpServletResponse response;
+        private final String clientKey;
+
+        private WaitingCallListener(AtomicReference<FairWaitingQueue.WaitingCall> waitingCall, HttpServletResponse response,
+                                    String clientKey) {
+            this.waitingCall = waitingCall;
+            this.response = response;
+            this.clientKey = clientKey;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            // Not cancelled if the queue is answering the request already
+            if (cancel()) {
+                try {
+                    reject(response, ClientRateLimitService.AUTH_RATE_LIMITER, clientKey, privateRejection);
+                } finally {
+                    event.getAsyncContext().complete();
+                }
+            }
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            cancel();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            cancel();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // The request is dispatched again once granted, the listener is not needed afterwards
+        }
+
+        private boolean cancel() {
+            FairWaitingQueue.WaitingCall call = waitingCall.get();
+            return call != null && call.cancel();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.takehome.config;
+
+import com.example.takehome.exception.ConcurrencyLimitExceededException;
+import com.example.takehome.ratelimit.AdaptiveConcurrencyLimiter;
+import com.example.takehome.service.ConcurrencyLimitService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ Web filter applying the adaptive concurrency limit to all the countries routes, see {@link ConcurrencyLimitService}:
+ the permit is taken before the handler runs and released when the exchange is done. The handler returns before the body
+ is encoded and written, so releasing the permit here keeps the serialization and the writing of the response in the
+ latency sampled by the limit. The requests over the limit fail with the exception of the limit, answered
+ 503 Service Unavailable by the ReactiveExceptionHandler.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConcurrencyPermitFilter implements WebFilter {
+    private static final String PUBLIC_COUNTRIES_PATH = "/api/v1/public/countries/";
+    private static final String PRIVATE_COUNTRIES_PATH = "/api/v1/private/countries/";
+
+    private final ConcurrencyLimitService concurrencyLimitService;
+
+    /**
+     Takes a permit for the exchange of a countries route, and releases it once the response is written, failed or cancelled.
+     @param exchange the current exchange
+     @param chain the rest of the filter chain
+     @return completion of the request handling
+     */
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        if (!path.startsWith(PUBLIC_COUNTRIES_PATH) && !path.startsWith(PRIVATE_COUNTRIES_PATH)) {
+            return chain.filter(exchange);
+        }
+        AdaptiveConcurrencyLimiter.Permit permit;
+        try {
+            permit = concurrencyLimitService.acquire();
+        } catch (ConcurrencyLimitExceededException e) {
+            return Mono.error(e);
+        }
+        return chain.filter(exchange).doFinally(signal -> permit.release());
+    }
+}
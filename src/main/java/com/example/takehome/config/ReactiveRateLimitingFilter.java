@@ -0,0 +1,107 @@
+package com.example.takehome.config;
+
+import com.example.takehome.ratelimit.FairWaitingQueue;
+import com.example.takehome.service.ClientRateLimitService;
+import com.example.takehome.service.RateLimitWaitingService;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.security.Principal;
+
+/**
+ Web filter applying the per client rate limiters of the countries endpoints in the reactive security chain,
+ as the countries controller does in the servlet serving mode: by remote address for the public endpoint
+ and by user for the private ones.
+ Acquiring a permission never waits; it runs on the bounded elastic scheduler when the limits are shared
+ by the nodes, since renewing a lease calls the database. When waiting is enabled ({@link RateLimitWaitingService}),
+ the requests of the private endpoints over the limit wait for a permit instead of being rejected, without holding a thread.
+ It is not a bean on purpose: WebFlux would otherwise also register it in the application filter chain.
+ */
+public class ReactiveRateLimitingFilter implements WebFilter {
+    private static final PathPattern PUBLIC_COUNTRIES = PathPatternParser.defaultInstance.parse("/api/v1/public/countries/**");
+    private static final PathPattern PRIVATE_COUNTRIES = PathPatternParser.defaultInstance.parse("/api/v1/private/countries/**");
+
+    private final ClientRateLimitService clientRateLimitService;
+    private final RateLimitWaitingService rateLimitWaitingService;
+
+    /**
+     Creates the filter using the per client rate limiters.
+     @param clientRateLimitService the per client rate limiters
+     @param rateLimitWaitingService the waiting for the permits of the private endpoints, null if disabled
+     */
+    public ReactiveRateLimitingFilter(ClientRateLimitService clientRateLimitService, RateLimitWaitingService rateLimitWaitingService) {
+        this.clientRateLimitService = clientRateLimitService;
+        this.rateLimitWaitingService = rateLimitWaitingService;
+    }
+
+    /**
+     Rejects the request with {@link RequestNotPermitted} when its client has no permission left for its endpoint.
+     @param exchange the current exchange
+     @param chain the rest of the filter chain
+     @return completion of the request handling
+     */
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        String rateLimiterName;
+        Mono<String> clientKey;
+        if (PUBLIC_COUNTRIES.matches(path)) {
+            rateLimiterName = ClientRateLimitService.NON_AUTH_RATE_LIMITER;
+            clientKey = Mono.just(remoteAddress(exchange));
+        } else if (PRIVATE_COUNTRIES.matches(path)) {
+            // The chain has authenticated the request already, the principal is the user of the token
+            rateLimiterName = ClientRateLimitService.AUTH_RATE_LIMITER;
+            clientKey = exchange.getPrincipal().map(Principal::getName).defaultIfEmpty(remoteAddress(exchange));
+        } else {
+            return chain.filter(exchange);
+        }
+        if (clientRateLimitService.isClusterEnabled()) {
+            // Renewing a lease of the shared permits calls the database, never on the event loop
+            clientKey = clientKey.publishOn(Schedulers.boundedElastic());
+        }
+        return clientKey.flatMap(key -> {
+            if (clientRateLimitService.tryAcquirePermission(rateLimiterName, key, 1)) {
+                return chain.filter(exchange);
+            }
+            if (rateLimitWaitingService != null && rateLimiterName.equals(ClientRateLimitService.AUTH_RATE_LIMITER)) {
+                return awaitPermission(key).then(Mono.defer(() -> chain.filter(exchange)));
+            }
+            return Mono.error(clientRateLimitService.requestNotPermitted(rateLimiterName));
+        });
+    }
+
+    /**
+     Waits for a permit of the private endpoints.
+     @param userName the user of the request
+     @return completion once the request got its permit, or {@link RequestNotPermitted} at the end of the maximum wait
+     */
+    private Mono<Void> awaitPermission(String userName) {
+        RequestNotPermitted rejection = clientRateLimitService.requestNotPermitted(ClientRateLimitService.AUTH_RATE_LIMITER);
+        return Mono.<Void>create(sink -> {
+                    FairWaitingQueue.WaitingCall call = rateLimitWaitingService.await(userName, sink::success, () -> sink.error(rejection));
+                    if (call == null) {
+                        sink.error(rejection);
+                    } else {
+                        // A client gone away leaves the queue, its request never takes a permit
+                        sink.onCancel(call::cancel);
+                    }
+                })
+                // The permits are granted by a single thread, the request goes on on the parallel scheduler
+                .publishOn(Schedulers.parallel());
+    }
+
+    private static String remoteAddress(ServerWebExchange exchange) {
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        return remoteAddress == null || remoteAddress.getAddress() == null ? "unknown" : remoteAddress.getAddress().getHostAddress();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.takehome.config;
+
+import com.example.takehome.service.ClientRateLimitService;
+import com.example.takehome.service.RateLimitWaitingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.csrf.CsrfWebFilter;
+import org.springframework.security.web.server.util.matcher.AndServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.NegatedServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+
+/**
+ Configuration class for Spring Security in the reactive serving mode.
+ It applies the same policies as {@link SecurityConfiguration}, with the JWT authentication
+ and the per client rate limiting of the countries endpoints implemented as filters of the reactive security chain.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfiguration {
+    private final JwtReactiveAuthenticationManager jwtAuthenticationManager;
+    private final ClientRateLimitService clientRateLimitService;
+    private final ObjectProvider<RateLimitWaitingService> rateLimitWaitingService;
+
+    /**
+     Configures the reactive security filter chain.
+     @param http server HTTP security object
+     @return security web filter chain
+     */
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        AuthenticationWebFilter jwtAuthenticationFilter = new AuthenticationWebFilter(jwtAuthenticationManager);
+        jwtAuthenticationFilter.setServerAuthenticationConverter(jwtAuthenticationManager);
+        jwtAuthenticationFilter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+        jwtAuthenticationFilter.setAuthenticationFailureHandler(
+                new ServerAuthenticationEntryPointFailureHandler(new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)));
+
+        return http.csrf()
+                .requireCsrfProtectionMatcher(new AndServerWebExchangeMatcher(CsrfWebFilter.DEFAULT_CSRF_MATCHER,
+                        new NegatedServerWebExchangeMatcher(ServerWebExchangeMatchers.pathMatchers("/api/v1/auth/**"))))
+                .and()
+                .httpBasic().disable()
+                .formLogin().disable()
+                .authorizeExchange()
+                .pathMatchers("/actuator/**").authenticated() // require authentication for accessing actuator endpoints
+                .pathMatchers("/api/v1/private/**").authenticated() // require authentication for accessing private endpoints
+                .pathMatchers("/api/v1/public/**").permitAll() // allow for public endpoints
+                .pathMatchers("/api/v1/auth/**").permitAll()   // allow for auth endpoints, they will have user/password authentication
+                .anyExchange().authenticated()
+                .and()
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance()) // stateless, no session
+                .exceptionHandling()
+                .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN))
+                .and()
+                .addFilterAt(jwtAuthenticationFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                // rate limit after the authorization, so that rejected requests do not consume permissions
+                .addFilterAfter(new ReactiveRateLimitingFilter(clientRateLimitService, rateLimitWaitingService.getIfAvailable()), SecurityWebFiltersOrder.AUTHORIZATION)
+                .headers(headers -> headers.xssProtection(Customizer.withDefaults())) // add protection against XSS attacks
+                .build();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.takehome.config;
+
+import com.example.takehome.controller.ReactiveAuthenticationHandler;
+import com.example.takehome.controller.ReactiveCountriesHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ Configuration class for the reactive serving mode, enabled by the "reactive" profile.
+ The countries API is served by functional routes on Netty, with the same contract as the annotated controllers.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfiguration {
+
+    /**
+     Creates the Netty server factory.
+     Tomcat is also on the classpath for the servlet serving mode and Spring Boot would prefer it otherwise.
+     @return Netty reactive web server factory
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     Creates the routes of the countries API.
+     @param countriesHandler handler of the countries routes
+     @param authenticationHandler handler of the authentication route
+     @return router function of the API
+     */
+    @Bean
+    public RouterFunction<ServerResponse> countriesApiRoutes(ReactiveCountriesHandler countriesHandler,
+                                                             ReactiveAuthenticationHandler authenticationHandler) {
+        return RouterFunctions.route()
+                .GET("/api/v1/public/countries/{countryCodes}", countriesHandler::getCountryData)
+                .GET("/api/v1/private/countries/{countryCodes}", countriesHandler::getCountryData)
+                .POST("/api/v1/auth/authenticate", authenticationHandler::authenticate)
+                .build();
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.takehome.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ Data source sending the connections of read-only transactions to the read replicas, and all the others to the primary.
+ The replicas are used in turn; a replica which fails to give a connection is skipped until its retry delay
+ has elapsed, and the primary is used when no replica is available.
+ The replicas are also probed periodically, see {@link #probeReplicas()}: a replica which fails the probe or whose
+ replication lag exceeds the maximum lag is skipped until a later probe succeeds, so the requests do not wait for
+ the connection timeout of a dead replica and do not read data older than the maximum lag, within the probe interval.
+ It must be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so that
+ the connection is only requested once the read-only flag of the transaction is known.
+ */
+@Slf4j
+public class ReadReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+    /**
+     Replication lag of a Postgres standby in seconds: zero when all the received WAL is replayed, so that an idle
+     primary is not reported as lag, and zero on a server which is not a standby.
+     */
+    private static final String REPLICATION_LAG_QUERY = """
+            select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                        else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end""";
+    private static final int PROBE_QUERY_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration retryAfter;
+    private final Duration maxLag;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     Creates the routing data source.
+     @param primary the data source of the primary database, for the writes and the fallback of the reads
+     @param replicas the data sources of the read replicas, possibly none
+     @param retryAfter the delay before a failed replica is used again
+     @param maxLag the maximum replication lag of a replica used for reads
+     */
+    public ReadReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration retryAfter, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.retryAfter = retryAfter;
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!replicas.isEmpty() && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Connection connection = getReplicaConnection();
+            if (connection != null) {
+                return connection;
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     Gets a connection from the next available replica.
+     @return the connection, or null if no replica is available
+     */
+    private Connection getReplicaConnection() {
+        int first = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((first + i) % replicas.size());
+            if (!replica.isAvailable()) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                replica.markUnavailable(retryAfter);
+                log.warn("Read replica " + replica.dataSource + " is unavailable, it is retried in " + retryAfter, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     Checks the connection and the replication lag of every replica, at the interval configured in application properties.
+     A replica which fails the check or lags behind more than the maximum lag is skipped until a later check succeeds.
+     */
+    @Scheduled(initialDelayString = "${datasource.replicas.probe-interval:5s}", fixedDelayString = "${datasource.replicas.probe-interval:5s}")
+    public void probeReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(PROBE_QUERY_TIMEOUT_SECONDS);
+                double lagSeconds;
+                try (ResultSet resultSet = statement.executeQuery(REPLICATION_LAG_QUERY)) {
+                    resultSet.next();
+                    lagSeconds = resultSet.getDouble(1);
+                }
+                if (lagSeconds * 1000 > maxLag.toMillis()) {
+                    replica.markUnavailable(retryAfter);
+                    log.warn("Read replica " + replica.dataSource + " lags behind by " + lagSeconds + "s, it is skipped");
+                } else {
+                    replica.markAvailable();
+                }
+            } catch (SQLException e) {
+                replica.markUnavailable(retryAfter);
+                log.warn("Read replica " + replica.dataSource + " failed the probe, it is skipped", e);
+            }
+        }
+    }
+
+    /**
+     Closes the data sources of the replicas, the primary is closed by its owner.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    /**
+     A read replica and its availability.
+     */
+    private static final class Replica {
+        private final DataSource dataSource;
+
+        /**
+         The {@link System#nanoTime()} from which the replica is used, later than now while it is unavailable.
+         */
+        private volatile long availableAtNanos = System.nanoTime();
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private boolean isAvailable() {
+            return System.nanoTime() - availableAtNanos >= 0;
+        }
+
+        private void markUnavailable(Duration retryAfter) {
+            availableAtNanos = System.nanoTime() + retryAfter.toNanos();
+        }
+
+        private void markAvailable() {
+            availableAtNanos = System.nanoTime();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.takehome.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -12,9 +13,11 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 /**
  Configuration class for Spring Security.
+ The reactive serving mode is secured by {@link ReactiveSecurityConfiguration} instead.
  */
 @Configuration
 @EnableWebSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 public class SecurityConfiguration {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
@@ -28,7 +31,7 @@ public class SecurityConfiguration {
      */
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-            http.csrf().ignoringRequestMatchers("/api/v1/auth/**")
+            http.csrf().ignoringRequestMatchers("/api/v1/auth/**", "/api/v1/private/countries/batch", "/api/v1/private/countries/stream") // the batch and stream POSTs use a bearer token, not cookies
             .and()
             .authorizeHttpRequests()
             .requestMatchers("/actuator/**").authenticated() // require authentication for accessing actuator endpoints
@@ -4,28 +4,33 @@ import com.example.takehome.dto.auth.AuthenticationRequest;
 import com.example.takehome.dto.auth.AuthenticationResponse;
 import com.example.takehome.service.AuthenticationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  Controller class for handling user authentication requests.
+ The logins run on the password hashing executor and the request thread is released while they wait.
  */
 @RestController
 @RequestMapping("/api/v1/auth/")
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AuthenticationController {
     private final AuthenticationService authenticationService;
 
     /**
      Authenticates a user and returns a JWT token.
      @param request authentication request containing username and password
-     @return response entity containing the JWT token
+     @return future response entity containing the JWT token
      */
     @PostMapping ("/authenticate")
-    public ResponseEntity<AuthenticationResponse> authenticate(@RequestBody AuthenticationRequest request) {
-        return ResponseEntity.ok(authenticationService.authenticate(request));
+    public CompletableFuture<ResponseEntity<AuthenticationResponse>> authenticate(@RequestBody AuthenticationRequest request) {
+        return authenticationService.authenticateAsync(request).thenApply(ResponseEntity::ok);
     }
 }
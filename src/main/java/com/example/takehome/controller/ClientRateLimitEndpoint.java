@@ -0,0 +1,63 @@
+package com.example.takehome.controller;
+
+import com.example.takehome.ratelimit.KeyedRateLimiter;
+import com.example.takehome.service.ClientRateLimitService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ Actuator endpoint (/actuator/ratelimiterclients) listing, for every per client rate limiter, its totals and
+ the clients with the most rejected calls. The clients are not metric tags on purpose, there may be many of them.
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "ratelimiterclients")
+public class ClientRateLimitEndpoint {
+    private final ClientRateLimitService clientRateLimitService;
+
+    /**
+     The number of clients listed for every rate limiter, configured in application properties.
+     */
+    @Value("${countries.rate-limit.top-rejected-clients:20}")
+    private int topRejectedClients;
+
+    /**
+     Lists the rate limiters and their most rejected clients.
+     @return the state of every rate limiter, by name
+     */
+    @ReadOperation
+    public Map<String, RateLimiterClients> rateLimiterClients() {
+        Map<String, RateLimiterClients> rateLimiters = new LinkedHashMap<>();
+        for (KeyedRateLimiter rateLimiter : clientRateLimitService.getRateLimiters()) {
+            rateLimiters.put(rateLimiter.getName(), new RateLimiterClients(
+                    rateLimiter.getLimitForPeriod(),
+                    rateLimiter.trackedKeys(),
+                    rateLimiter.getPermittedCalls(),
+                    rateLimiter.getRejectedCalls(),
+                    rateLimiter.topRejectedKeys(topRejectedClients)));
+        }
+        return rateLimiters;
+    }
+
+    /**
+     The state of a per client rate limiter.
+     @param limitForPeriod the permits of a client per period
+     @param trackedClients the number of clients tracked
+     @param permittedCalls the number of permitted calls
+     @param rejectedCalls the number of rejected calls
+     @param topRejectedClients the tracked clients with the most rejected calls
+     */
+    public record RateLimiterClients(int limitForPeriod,
+                                     int trackedClients,
+                                     long permittedCalls,
+                                     long rejectedCalls,
+                                     List<KeyedRateLimiter.KeyRejections> topRejectedClients) {
+    }
+}
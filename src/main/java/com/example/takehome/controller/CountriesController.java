@@ -1,81 +1,201 @@
 package com.example.takehome.controller;
 
+import com.example.takehome.catalog.CountryCatalog;
 import com.example.takehome.dto.ContinentCountryData;
+import com.example.takehome.dto.batch.CountryBatchRequest;
+import com.example.takehome.dto.batch.CountryBatchResponse;
 import com.example.takehome.exception.ApiInputDataValidationException;
-import com.example.takehome.model.Country;
+import com.example.takehome.service.ClientRateLimitService;
 import com.example.takehome.service.CountryService;
-import com.example.takehome.util.Util;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import com.example.takehome.service.PipelineStageTimers;
+import com.example.takehome.util.CountryCodeParser;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.BitSet;
 import java.util.List;
 /**
  Controller class for handling country related requests.
+ The endpoints are rate limited per client, see {@link ClientRateLimitService}: by remote address for the public
+ endpoint and by user for the private ones. The limits are applied by the RateLimitingFilter before the request
+ reaches the controller, except for the batch endpoint, which is charged by the number of its queries.
+ All the endpoints are also under the adaptive concurrency limit, applied by the ConcurrencyPermitFilter,
+ see {@link com.example.takehome.service.ConcurrencyLimitService}.
  */
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/v1")
-@Cacheable("countryDataCache")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CountriesController {
+    private static final int STREAM_WRITE_BUFFER_SIZE = 64 * 1024;
+
     private final CountryService countryService;
+    private final ClientRateLimitService clientRateLimitService;
+    private final PipelineStageTimers pipelineStageTimers;
+
+    /**
+     The maximum number of queries of a batch request, configured in application properties.
+     */
+    @Value("${countries.batch.max-size}")
+    private int batchMaxSize;
+
+    /**
+     The number of queries of a batch request charged as one rate limiter permit, configured in application properties.
+     */
+    @Value("${countries.batch.queries-per-permit}")
+    private int batchQueriesPerPermit;
+
+    /**
+     The maximum number of characters of a line of a streaming request, configured in application properties.
+     */
+    @Value("${countries.stream.max-line-length}")
+    private int streamMaxLineLength;
 
     /**
      The public version of the main endpoint of the application.
      Retrieves country data for a public user for the given country codes.
-     Uses rate limiting to limit the number of requests per second.
+     Uses rate limiting to limit the number of requests per second of every remote address.
 
-     @param countryCodes list of country codes to retrieve data for
+     @param countryCodes comma separated country codes to retrieve data for
+     @param request the web request, used for the If-None-Match check
      @return response entity containing a list of continent country data objects
      */
-    @RateLimiter(name = "nonAuthCountryDataRateLimiter")
     @GetMapping("/public/countries/{countryCodes}")
-    public ResponseEntity<List<ContinentCountryData>> getCountryDataForPublicUser(@PathVariable List<String> countryCodes) {
+    public ResponseEntity<List<ContinentCountryData>> getCountryDataForPublicUser(@PathVariable String countryCodes,
+                                                                                  WebRequest request) {
         log.info("Retrieving country data for public user for country codes: " + countryCodes);
-        return getCountryData(countryCodes);
+        return getCountryData(PipelineStageTimers.PUBLIC_ENDPOINT, countryCodes, request);
     }
 
     /**
      The private version of the main endpoint of the application.
      Retrieves country data for an authenticated user for the given country codes.
-     @param countryCodes list of country codes to retrieve data for
+     @param countryCodes comma separated country codes to retrieve data for
+     @param request the web request, used for the If-None-Match check
      @return response entity containing a list of continent country data objects
      */
-    @RateLimiter(name = "authCountryDataRateLimiter")
     @GetMapping("/private/countries/{countryCodes}")
-    public ResponseEntity<List<ContinentCountryData>> getCountryDataForAuthUser(@PathVariable List<String> countryCodes) {
+    public ResponseEntity<List<ContinentCountryData>> getCountryDataForAuthUser(@PathVariable String countryCodes,
+                                                                                WebRequest request) {
         log.info("Retrieving country data for auth user for country codes: " + countryCodes);
-        return getCountryData(countryCodes);
+        return getCountryData(PipelineStageTimers.PRIVATE_ENDPOINT, countryCodes, request);
+    }
+
+    /**
+     Batch version of the private endpoint, resolving many country code queries in one request.
+     All the queries are evaluated in parallel against the same catalog snapshot.
+     The rate limiter is charged one permit for every started group of queries-per-permit queries.
+
+     @param batchRequest the queries, each one a string of comma separated country codes
+     @param principal the authenticated user, the key of the rate limiter
+     @return response entity containing the result of every query, in the order of the queries
+     */
+    @PostMapping("/private/countries/batch")
+    public ResponseEntity<CountryBatchResponse> getCountryDataBatchForAuthUser(@RequestBody CountryBatchRequest batchRequest,
+                                                                               Principal principal) {
+        List<String> queries = batchRequest.getQueries();
+        if(queries == null || queries.isEmpty()) {
+            throw new ApiInputDataValidationException("The batch must contain at least one query.");
+        }
+        if(queries.size() > batchMaxSize) {
+            throw new ApiInputDataValidationException("The batch must contain at most " + batchMaxSize + " queries.");
+        }
+        log.info("Retrieving country data for auth user for a batch of " + queries.size() + " queries");
+
+        // Charge the rate limiter by the weight of the batch (rounded up)
+        int permits = (queries.size() + batchQueriesPerPermit - 1) / batchQueriesPerPermit;
+        clientRateLimitService.acquirePermission(ClientRateLimitService.AUTH_RATE_LIMITER, principal.getName(), permits);
+        return ResponseEntity.ok(countryService.getContinentCountriesBatch(queries));
+    }
+
+    /**
+     Streaming version of the private endpoint for very large inputs.
+     The request body contains one query of comma separated country codes per line, the response contains
+     one JSON result per line (NDJSON) in the order of the queries, in the same format as the batch results.
+     The lines are resolved and written one at a time, so neither the request nor the response is buffered in memory.
+     The stream is charged like a batch, one permit for every started group of queries-per-permit lines: the first permit
+     is taken before the stream is read, the next ones while streaming; once a permit is refused, the stream ends
+     with an error result.
+
+     @param requestBody the request body containing the queries
+     @param response the response the results are streamed to
+     @param principal the authenticated user, the key of the rate limiter
+     @throws IOException if the request can not be read or the response can not be written
+     */
+    @PostMapping(value = "/private/countries/stream",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamCountryDataForAuthUser(InputStream requestBody, HttpServletResponse response,
+                                             Principal principal) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        Reader queries = new InputStreamReader(requestBody, StandardCharsets.UTF_8);
+        OutputStream outputStream = new BufferedOutputStream(response.getOutputStream(), STREAM_WRITE_BUFFER_SIZE);
+
+        long[] queryCount = {0};
+        long resultCount = countryService.streamContinentCountries(queries, outputStream, streamMaxLineLength,
+                // The first group of queries is covered by the permit of the request
+                () -> queryCount[0]++ % batchQueriesPerPermit != 0 || queryCount[0] == 1
+                        || clientRateLimitService.tryAcquirePermission(ClientRateLimitService.AUTH_RATE_LIMITER, principal.getName(), 1));
+        outputStream.flush();
+        log.info("Streamed country data for auth user for " + resultCount + " queries");
     }
 
     /**
      Retrieves country data for the given country codes.
+     The response carries a strong ETag derived from the catalog version and the canonical code set;
+     when it matches the If-None-Match header of the request, 304 Not Modified is returned without building the body.
+     The parsing and the lookup are timed, and the endpoint is passed to the timer of the serialization, see {@link PipelineStageTimers}.
 
-     @param countryCodes list of country codes to retrieve data for
-     @return response entity containing a list of continent country data objects
+     @param endpoint the public or private endpoint, for the timers
+     @param countryCodes comma separated country codes to retrieve data for
+     @param request the web request, used for the If-None-Match check
+     @return response entity containing a list of continent country data objects, or null if not modified
      */
-    private ResponseEntity<List<ContinentCountryData>> getCountryData(List<String> countryCodes) {
-        if(countryCodes.isEmpty()) {
+    private ResponseEntity<List<ContinentCountryData>> getCountryData(String endpoint, String countryCodes, WebRequest request) {
+        // The serialization is timed by the message converter, which can not tell the endpoint from the response
+        request.setAttribute(PipelineStageTimers.ENDPOINT_ATTRIBUTE, endpoint, RequestAttributes.SCOPE_REQUEST);
+        if(countryCodes.isBlank()) {
             // Exit early if no country codes are provided
             return ResponseEntity.badRequest().build();
         }
-        // Get countries with the given codes (duplicates are removed for simplicity)
-        List<Country> countryList = countryService.getCountriesByCodeIn(
-                Util.processCountries(countryCodes));
-
-        // Convert the list of countries to the desired result format
-        List<ContinentCountryData> continentCountries = Util.convertToContinentCountries(countryList);
-        if(continentCountries.isEmpty()) {
+        // The codes are cleaned up and duplicates are removed while parsing, unknown codes are dropped
+        // so that all the equivalent requests share the same canonical code set.
+        // The whole request uses the same snapshot even if the catalog is refreshed meanwhile
+        CountryCatalog catalog = countryService.getCountryCatalog();
+        long parseStart = System.nanoTime();
+        BitSet countryCodeSet = catalog.retainKnownCodes(CountryCodeParser.parse(countryCodes));
+        pipelineStageTimers.record(PipelineStageTimers.PARSE, endpoint, PipelineStageTimers.NO_CACHE, System.nanoTime() - parseStart);
+        if(countryCodeSet.isEmpty()) {
             // Exit early if no countries are found
-            throw new ApiInputDataValidationException("The list of countries contains only invalid country codes.");
+            throw new ApiInputDataValidationException(CountryService.ONLY_INVALID_COUNTRY_CODES);
+        }
+        // Sets the ETag header, and the 304 status if the client already has the current data
+        if(request.checkNotModified(catalog.eTagOf(countryCodeSet))) {
+            return null;
         }
-        return ResponseEntity.ok(continentCountries);
+        // Get the continents of the countries with the given codes in the desired result format
+        return ResponseEntity.ok(pipelineStageTimers.lookup(endpoint, () -> countryService.getContinentCountries(catalog, countryCodeSet)));
     }
 }
\ No newline at end of file
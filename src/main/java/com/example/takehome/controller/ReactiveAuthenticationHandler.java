@@ -0,0 +1,33 @@
+package com.example.takehome.controller;
+
+import com.example.takehome.dto.auth.AuthenticationRequest;
+import com.example.takehome.service.AuthenticationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ Handler of the authentication route in the reactive serving mode, with the same contract as {@link AuthenticationController}.
+ The password check and the user lookup are blocking, so they run on the password hashing executor.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthenticationHandler {
+    private final AuthenticationService authenticationService;
+
+    /**
+     Authenticates a user and returns a JWT token.
+     @param request server request containing the username and password
+     @return the response containing the JWT token
+     */
+    public Mono<ServerResponse> authenticate(ServerRequest request) {
+        return request.bodyToMono(AuthenticationRequest.class)
+                .flatMap(body -> Mono.fromFuture(authenticationService.authenticateAsync(body)))
+                .flatMap(response -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(response));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.takehome.controller;
+
+import com.example.takehome.catalog.CountryCatalog;
+import com.example.takehome.dto.ContinentCountryData;
+import com.example.takehome.exception.ApiInputDataValidationException;
+import com.example.takehome.service.CountryService;
+import com.example.takehome.service.PipelineStageTimers;
+import com.example.takehome.util.CountryCodeParser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ Handler of the countries routes in the reactive serving mode, with the same contract as {@link CountriesController}.
+ The requests are answered from the in-memory catalog without any blocking call, directly on the event loop.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCountriesHandler {
+    private static final int INITIAL_BODY_BUFFER_SIZE = 1024;
+
+    private final CountryService countryService;
+    private final PipelineStageTimers pipelineStageTimers;
+
+    /**
+     Retrieves country data for the country codes of the countryCodes path variable,
+     for both the public and the private route.
+     The response carries the same strong ETag as the servlet endpoints and 304 Not Modified is returned
+     when it matches the If-None-Match header of the request.
+     The routes are under the adaptive concurrency limit, applied by the ReactiveConcurrencyPermitFilter.
+     The parsing, the lookup and the encoding are timed, see {@link PipelineStageTimers}.
+
+     @param request the server request
+     @return the response containing a list of continent country data objects
+     */
+    public Mono<ServerResponse> getCountryData(ServerRequest request) {
+        String endpoint = PipelineStageTimers.endpointOf(request.path());
+        String countryCodes = request.pathVariable("countryCodes");
+        log.info("Retrieving country data for country codes: " + countryCodes);
+        if (countryCodes.isBlank()) {
+            // Exit early if no country codes are provided
+            return ServerResponse.badRequest().build();
+        }
+        CountryCatalog catalog = countryService.getCountryCatalog();
+        long parseStart = System.nanoTime();
+        BitSet countryCodeSet = catalog.retainKnownCodes(CountryCodeParser.parse(countryCodes));
+        pipelineStageTimers.record(PipelineStageTimers.PARSE, endpoint, PipelineStageTimers.NO_CACHE, System.nanoTime() - parseStart);
+        if (countryCodeSet.isEmpty()) {
+            // Exit early if no countries are found
+            return Mono.error(new ApiInputDataValidationException(CountryService.ONLY_INVALID_COUNTRY_CODES));
+        }
+        String eTag = catalog.eTagOf(countryCodeSet);
+        if (isNotModified(request, eTag)) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        List<ContinentCountryData> continentCountries =
+                pipelineStageTimers.lookup(endpoint, () -> countryService.getContinentCountries(catalog, countryCodeSet));
+        return ServerResponse.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromDataBuffers(Mono.fromCallable(() -> encode(request, endpoint, continentCountries))));
+    }
+
+    /**
+     Checks the If-None-Match header of the request, using the weak comparison required for GET requests.
+     @param request the server request
+     @param eTag the current entity tag of the requested data
+     @return true if the client already has the current data
+     */
+    private static boolean isNotModified(ServerRequest request, String eTag) {
+        for (String requestETag : request.headers().asHttpHeaders().getIfNoneMatch()) {
+            if (requestETag.equals("*") || stripWeakPrefix(requestETag).equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    /**
+     Encodes the response body from the pre-encoded JSON fragments of the catalog.
+     @param request the server request, providing the buffer factory of the response
+     @param endpoint the public or private endpoint, for the timers
+     @param continentCountries the continents to encode
+     @return the buffer holding the JSON body
+     */
+    private DataBuffer encode(ServerRequest request, String endpoint, List<ContinentCountryData> continentCountries) {
+        long start = System.nanoTime();
+        DataBuffer body = request.exchange().getResponse().bufferFactory().allocateBuffer(INITIAL_BODY_BUFFER_SIZE);
+        try (OutputStream outputStream = body.asOutputStream()) {
+            countryService.getCountryCatalog().getJsonFragments().write(continentCountries, outputStream);
+        } catch (IOException e) {
+            DataBufferUtils.release(body);
+            throw new UncheckedIOException(e);
+        }
+        pipelineStageTimers.record(PipelineStageTimers.SERIALIZATION, endpoint, PipelineStageTimers.NO_CACHE, System.nanoTime() - start);
+        return body;
+    }
+}
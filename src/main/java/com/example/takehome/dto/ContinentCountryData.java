@@ -3,14 +3,16 @@ package com.example.takehome.dto;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 /**
  * DTO for continent country data.
+ * It is serializable since it is stored in the off-heap countryDataCache.
  */
 @Getter
 @Setter
-public class ContinentCountryData {
+public class ContinentCountryData implements Serializable {
     private List<String> countries;
     private String name;
     private List<String> otherCountries;
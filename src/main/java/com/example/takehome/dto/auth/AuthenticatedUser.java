@@ -0,0 +1,17 @@
+package com.example.takehome.dto.auth;
+
+import java.security.Principal;
+
+/**
+ * Principal of the requests authenticated by a JWT token, built from the verified claims of the token
+ * without loading the user from the database.
+ *
+ * @param id the id of the user
+ * @param email the email of the user, the subject of the token
+ */
+public record AuthenticatedUser(Long id, String email) implements Principal {
+    @Override
+    public String getName() {
+        return email;
+    }
+}
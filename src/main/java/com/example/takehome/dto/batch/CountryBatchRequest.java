@@ -0,0 +1,19 @@
+package com.example.takehome.dto.batch;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for batch country data requests.
+ * Every query is a string of comma separated country codes, like the path of the main endpoints.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountryBatchRequest {
+    private List<String> queries;
+}
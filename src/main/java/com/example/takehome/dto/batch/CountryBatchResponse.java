@@ -0,0 +1,20 @@
+package com.example.takehome.dto.batch;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for batch country data responses.
+ * The results are in the same order as the queries of the request.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountryBatchResponse {
+    private String catalogVersion;
+    private List<CountryBatchResult> results;
+}
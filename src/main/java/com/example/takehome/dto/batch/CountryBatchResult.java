@@ -0,0 +1,24 @@
+package com.example.takehome.dto.batch;
+import com.example.takehome.dto.ContinentCountryData;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for the result of a single query of a batch country data request.
+ * Either the continents or the error message of the query are set.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CountryBatchResult {
+    private String query;
+    private List<ContinentCountryData> continents;
+    private String error;
+}
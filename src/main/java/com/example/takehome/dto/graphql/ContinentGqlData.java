@@ -1,21 +1,30 @@
 package com.example.takehome.dto.graphql;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
+
 import java.util.List;
 
 /**
  * DTO for GraphQL continent data.
  */
 @Getter
+@NoArgsConstructor
+@AllArgsConstructor
 public class ContinentGqlData {
     private ContinentData data;
 
     @Getter
-    public class ContinentData {
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ContinentData {
         private List<Continent> continents;
     }
 
     @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class Continent {
         private String code;
         private String name;
@@ -23,6 +32,8 @@ public class ContinentGqlData {
     }
 
     @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class Country {
         private String code;
         private String name;
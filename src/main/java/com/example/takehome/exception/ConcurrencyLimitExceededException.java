@@ -0,0 +1,10 @@
+package com.example.takehome.exception;
+
+/**
+ * Exception for the requests shed because the adaptive concurrency limit of the countries endpoints is reached.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+    public ConcurrencyLimitExceededException(int limit) {
+        super("The concurrency limit of " + limit + " requests in flight is reached");
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.takehome.exception;
 
+import com.example.takehome.util.SampledLog;
 import io.github.resilience4j.ratelimiter.RequestNotPermitted;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -10,6 +13,7 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.context.request.WebRequest;
+import java.time.Duration;
 import java.util.Date;
 
 /**
@@ -18,7 +22,38 @@ import java.util.Date;
  */
 @ControllerAdvice
 @Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GlobalExceptionHandler {
+    public static final String TOO_MANY_REQUESTS_MESSAGE =
+            "Sorry, we couldn't complete your request at this time. " +
+            "The server has received more requests than the allowed limit. " +
+            "Please try again later or contact support if the problem persists.";
+    static final String TOO_MANY_LOGINS_MESSAGE =
+            "Sorry, we couldn't authenticate you at this time. " +
+            "The server is processing too many logins. " +
+            "Please try again later or contact support if the problem persists.";
+    public static final String SERVICE_OVERLOADED_MESSAGE =
+            "Sorry, we couldn't complete your request at this time. " +
+            "The server is processing too many requests. " +
+            "Please try again later or contact support if the problem persists.";
+    static final String USERNAME_NOT_FOUND_MESSAGE = "The request could not be completed. Username was not found.";
+    static final String BAD_CREDENTIALS_MESSAGE = "The user could not be authenticated due to incorrect credentials.";
+    static final String INTERNAL_SERVER_ERROR_MESSAGE =
+            "Sorry, we couldn't complete your request at this time. " +
+            "The server encountered an error while processing your request. " +
+            "Please try again later or contact support if the problem persists.";
+
+    /**
+     Sampling of the logs of the rejected logins and requests, which may come in bursts.
+     */
+    private final SampledLog loginRejectionLog;
+    private final SampledLog rejectionLog;
+
+    public GlobalExceptionHandler(@Value("${auth.password-hashing.rejection-log-interval:10s}") Duration loginRejectionLogInterval,
+                                  @Value("${countries.rate-limit.rejection-log-interval:10s}") Duration rejectionLogInterval) {
+        this.loginRejectionLog = new SampledLog(loginRejectionLogInterval);
+        this.rejectionLog = new SampledLog(rejectionLogInterval);
+    }
 
     /**
      Handles RequestNotPermitted exceptions and returns an HTTP response with a TOO_MANY_REQUESTS status code and error message.
@@ -29,16 +64,37 @@ public class GlobalExceptionHandler {
     @ExceptionHandler({RequestNotPermitted.class})
     @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
     public ResponseEntity<ErrorMessage> handleRequestNotPermitted(RequestNotPermitted ex, WebRequest request) {
-        log.error("Too many requests to the API");
-        String internalServerErrorMessage =
-            "Sorry, we couldn't complete your request at this time. " +
-            "The server has received more requests than the allowed limit. " +
-            "Please try again later or contact support if the problem persists.";
+        long rejected = rejectionLog.sample();
+        if (rejected > 0) {
+            log.error("Too many requests to the API, " + rejected + " requests rejected since the last report");
+        }
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                new Date(),
+                TOO_MANY_REQUESTS_MESSAGE,
+                request.getDescription(false));
 
+        return new ResponseEntity<>(message, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    /**
+     Handles TooManyLoginsException exceptions of the password hashing executor, whose queue of logins is full,
+     and returns an HTTP response with a TOO_MANY_REQUESTS status code and error message.
+     @param ex The TooManyLoginsException exception that occurred.
+     @param request The WebRequest associated with the exception.
+     @return An HTTP response with a TOO_MANY_REQUESTS status code and an ErrorMessage object containing an error message.
+     */
+    @ExceptionHandler({TooManyLoginsException.class})
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ResponseEntity<ErrorMessage> handleTooManyLogins(TooManyLoginsException ex, WebRequest request) {
+        long rejected = loginRejectionLog.sample();
+        if (rejected > 0) {
+            log.error(ex.getMessage() + ", " + rejected + " logins rejected since the last report");
+        }
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.TOO_MANY_REQUESTS.value(),
                 new Date(),
-                internalServerErrorMessage,
+                TOO_MANY_LOGINS_MESSAGE,
                 request.getDescription(false));
 
         return new ResponseEntity<>(message, HttpStatus.TOO_MANY_REQUESTS);
@@ -56,7 +112,7 @@ public class GlobalExceptionHandler {
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.NOT_FOUND.value(),
                 new Date(),
-                "The request could not be completed. Username was not found.",
+                USERNAME_NOT_FOUND_MESSAGE,
                 request.getDescription(false));
 
         return new ResponseEntity<>(message, HttpStatus.NOT_FOUND);
@@ -73,7 +129,7 @@ public class GlobalExceptionHandler {
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.UNAUTHORIZED.value(),
                 new Date(),
-                "The user could not be authenticated due to incorrect credentials.",
+                BAD_CREDENTIALS_MESSAGE,
                 request.getDescription(false));
 
         return new ResponseEntity<>(message, HttpStatus.UNAUTHORIZED);
@@ -125,15 +181,10 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorMessage> globalExceptionHandler(Exception ex, WebRequest request) {
         log.error("A system exception occurred: ", ex);
-        String internalServerErrorMessage =
-            "Sorry, we couldn't complete your request at this time. " +
-            "The server encountered an error while processing your request. " +
-            "Please try again later or contact support if the problem persists.";
-
         ErrorMessage message = new ErrorMessage(
                 HttpStatus.INTERNAL_SERVER_ERROR.value(),
                 new Date(),
-                internalServerErrorMessage,
+                INTERNAL_SERVER_ERROR_MESSAGE,
                 request.getDescription(false));
 
         return new ResponseEntity<>(message, HttpStatus.INTERNAL_SERVER_ERROR);
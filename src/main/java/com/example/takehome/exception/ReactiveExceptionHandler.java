@@ -0,0 +1,123 @@
+package com.example.takehome.exception;
+
+import com.example.takehome.util.SampledLog;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebExceptionHandler;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ Reactive counterpart of {@link GlobalExceptionHandler}, returning the same error messages in the reactive serving mode.
+ It handles the exceptions of the route handlers and of the security chain filters.
+ {@link ResponseStatusException}s, like 404 for unknown routes, are left to the default Spring Boot handler.
+ */
+@Slf4j
+@Component
+@Order(-2) // before the default Spring Boot error handler
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler implements WebExceptionHandler {
+    private final ObjectMapper objectMapper;
+
+    /**
+     Sampling of the logs of the rejected logins, which may come in bursts.
+     */
+    private final SampledLog loginRejectionLog;
+
+    public ReactiveExceptionHandler(ObjectMapper objectMapper,
+                                    @Value("${auth.password-hashing.rejection-log-interval:10s}") Duration loginRejectionLogInterval) {
+        this.objectMapper = objectMapper;
+        this.loginRejectionLog = new SampledLog(loginRejectionLogInterval);
+    }
+
+    /**
+     Writes the error message of the exception to the response.
+     @param exchange the current exchange
+     @param ex the exception to handle
+     @return completion of the error response, or the exception itself if it is not handled here
+     */
+    @Override
+    @NonNull
+    public Mono<Void> handle(@NonNull ServerWebExchange exchange, @NonNull Throwable ex) {
+        ServerHttpResponse response = exchange.getResponse();
+        if (response.isCommitted() || ex instanceof ResponseStatusException) {
+            return Mono.error(ex);
+        }
+        ErrorMessage message = toErrorMessage(ex, "uri=" + exchange.getRequest().getPath().value());
+
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        response.setStatusCode(HttpStatus.valueOf(message.getStatusCode()));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        if (ex instanceof ConcurrencyLimitExceededException) {
+            // Same as the servlet serving mode, the limit adapts within a second
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    /**
+     Maps an exception to the error message the servlet serving mode returns for it.
+     @param ex the exception to map
+     @param description the description of the request
+     @return the error message, with the HTTP status code of the response
+     */
+    private ErrorMessage toErrorMessage(Throwable ex, String description) {
+        if (ex instanceof RequestNotPermitted) {
+            log.error("Too many requests to the API");
+            return new ErrorMessage(HttpStatus.TOO_MANY_REQUESTS.value(), new Date(),
+                    GlobalExceptionHandler.TOO_MANY_REQUESTS_MESSAGE, description);
+        }
+        if (ex instanceof ConcurrencyLimitExceededException) {
+            log.debug("ConcurrencyLimitExceededException occurred: ", ex);
+            return new ErrorMessage(HttpStatus.SERVICE_UNAVAILABLE.value(), new Date(),
+                    GlobalExceptionHandler.SERVICE_OVERLOADED_MESSAGE, description);
+        }
+        if (ex instanceof TooManyLoginsException) {
+            long rejected = loginRejectionLog.sample();
+            if (rejected > 0) {
+                log.error(ex.getMessage() + ", " + rejected + " logins rejected since the last report");
+            }
+            return new ErrorMessage(HttpStatus.TOO_MANY_REQUESTS.value(), new Date(),
+                    GlobalExceptionHandler.TOO_MANY_LOGINS_MESSAGE, description);
+        }
+        if (ex instanceof UsernameNotFoundException) {
+            log.debug("UsernameNotFoundException occurred: ", ex);
+            return new ErrorMessage(HttpStatus.NOT_FOUND.value(), new Date(),
+                    GlobalExceptionHandler.USERNAME_NOT_FOUND_MESSAGE, description);
+        }
+        if (ex instanceof BadCredentialsException) {
+            log.debug("BadCredentialsException occurred: ", ex);
+            return new ErrorMessage(HttpStatus.UNAUTHORIZED.value(), new Date(),
+                    GlobalExceptionHandler.BAD_CREDENTIALS_MESSAGE, description);
+        }
+        if (ex instanceof ApiInputDataValidationException) {
+            log.error("A validation exception occurred: ", ex);
+            return new ErrorMessage(HttpStatus.BAD_REQUEST.value(), new Date(), ex.getMessage(), description);
+        }
+        log.error("A system exception occurred: ", ex);
+        return new ErrorMessage(HttpStatus.INTERNAL_SERVER_ERROR.value(), new Date(),
+                GlobalExceptionHandler.INTERNAL_SERVER_ERROR_MESSAGE, description);
+    }
+}
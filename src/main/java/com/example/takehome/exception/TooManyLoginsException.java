@@ -0,0 +1,10 @@
+package com.example.takehome.exception;
+
+/**
+ * Exception for the logins rejected because all the threads of the password hashing executor are busy and its queue is full.
+ */
+public class TooManyLoginsException extends RuntimeException {
+    public TooManyLoginsException(Throwable cause) {
+        super("Too many logins waiting for the password hashing executor", cause);
+    }
+}
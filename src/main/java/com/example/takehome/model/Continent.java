@@ -5,16 +5,21 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.List;
 /**
  * JPA Entity defining the continent source data used in the application.
  * The country data will be stored in the country table.
+ * The continents and their country rosters are held in the Hibernate second-level cache, see ehcache.xml.
  */
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "continent")
 @Table( name = "continent",
     uniqueConstraints = {
         @UniqueConstraint( name="continent_code_idx", columnNames = "code")
@@ -29,5 +34,6 @@ public class Continent {
     private String name;
 
     @OneToMany(mappedBy = "continent")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "continent.countries")
     private List<Country> countries;
 }
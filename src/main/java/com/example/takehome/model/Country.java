@@ -6,15 +6,20 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 /**
  * JPA Entity defining the country source data used in the application.
  * The country data will be stored in the country table.
+ * Rarely changed, so it is held in the "country" second-level cache region.
  */
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "country")
 @Table( name = "country",
     uniqueConstraints = {
             @UniqueConstraint( name="country_code_idx", columnNames = "code")
@@ -9,10 +9,12 @@ import jakarta.persistence.*;
 import java.util.Collection;
 import java.util.List;
 import com.example.takehome.enums.UserRole;
+import com.example.takehome.service.UserCacheEvictionListener;
 
 /**
  * JPA Entity defining the application user
  * The user will be stored in the api_user table.
+ * The users are looked up by email, which is unique and indexed.
  */
 @Getter
 @Setter
@@ -20,7 +22,12 @@ import com.example.takehome.enums.UserRole;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "api_user")
+@EntityListeners(UserCacheEvictionListener.class)
+@Table(name = "api_user",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "api_user_email_idx", columnNames = "email")
+    }
+)
 public class User implements UserDetails {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,187 @@
+package com.example.takehome.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Limit of the concurrent calls adapted to the observed latency, with the gradient algorithm of the Netflix
+ * concurrency-limits library (Gradient2): the latency of every call feeds a short and a long exponential average,
+ * and their ratio tells whether calls are queuing.
+ * <pre>
+ * gradient = clamp(rttTolerance * longRtt / shortRtt, 0.5, 1)
+ * newLimit = limit * gradient + sqrt(limit)
+ * limit    = limit * (1 - smoothing) + newLimit * smoothing
+ * </pre>
+ * While the latency stays within the tolerance of its long average, the limit grows by about its square root;
+ * when it rises, the limit shrinks by up to half, before the latency of all the calls degrades.
+ * The samples of calls started while the limit was less than half used say nothing about the capacity and only
+ * update the averages.
+ * <p>
+ * Acquiring a permit is a compare-and-set on the in-flight count. The limit is updated by one call at a time;
+ * the samples arriving during an update are skipped rather than waited for.
+ */
+public final class AdaptiveConcurrencyLimiter {
+    private static final int SHORT_WINDOW = 10;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final double longWindowWeight;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private volatile int limit;
+
+    // Guarded by updateLock
+    private double estimatedLimit;
+    private double shortRttNanos;
+    private double longRttNanos;
+    private boolean hasSamples;
+
+    /**
+     * Creates a limiter on the system clock.
+     *
+     * @param initialLimit the limit before any sample
+     * @param minLimit the lowest limit
+     * @param maxLimit the highest limit
+     * @param rttTolerance the ratio of the long average latency the short one may reach before the limit shrinks
+     * @param smoothing the weight of a new limit, between 0 and 1
+     * @param longWindow the number of samples of the long average latency
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double rttTolerance,
+                                      double smoothing, int longWindow) {
+        this(initialLimit, minLimit, maxLimit, rttTolerance, smoothing, longWindow, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double rttTolerance,
+                               double smoothing, int longWindow, LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit || rttTolerance < 1 || smoothing <= 0 || smoothing > 1 || longWindow < 1) {
+            throw new IllegalArgumentException("Invalid concurrency limit configuration");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.longWindowWeight = 2.0 / (longWindow + 1);
+        this.nanoClock = nanoClock;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Acquires a permit for a call, without waiting.
+     *
+     * @return the permit, to release when the call is done, or null if the limit is reached
+     */
+    public Permit tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejectedCalls.increment();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(nanoClock.getAsLong(), current + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    /**
+     * @return the short average latency, in nanoseconds
+     */
+    public double getShortRttNanos() {
+        updateLock.lock();
+        try {
+            return shortRttNanos;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * @return the long average latency, in nanoseconds
+     */
+    public double getLongRttNanos() {
+        updateLock.lock();
+        try {
+            return longRttNanos;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private void onSample(long rttNanos, int inFlightAtStart) {
+        if (!updateLock.tryLock()) {
+            return;
+        }
+        try {
+            if (!hasSamples) {
+                shortRttNanos = rttNanos;
+                longRttNanos = rttNanos;
+                hasSamples = true;
+            } else {
+                shortRttNanos += (rttNanos - shortRttNanos) * 2.0 / (SHORT_WINDOW + 1);
+                longRttNanos += (rttNanos - longRttNanos) * longWindowWeight;
+            }
+            // The long average lags behind when the latency goes back down, pull it so the limit can grow again
+            if (longRttNanos > 2 * shortRttNanos) {
+                longRttNanos *= 0.95;
+            }
+            if (inFlightAtStart < estimatedLimit / 2) {
+                return;
+            }
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * longRttNanos / Math.max(1, shortRttNanos)));
+            double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit * (1 - smoothing) + newLimit * smoothing));
+            limit = (int) estimatedLimit;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * Permit of a call in flight.
+     */
+    public final class Permit {
+        private final long startNanos;
+        private final int inFlightAtStart;
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Releases the permit and samples the latency of the call.
+         */
+        public void release() {
+            inFlight.decrementAndGet();
+            onSample(nanoClock.getAsLong() - startNanos, inFlightAtStart);
+        }
+
+        /**
+         * Releases the permit without sampling the latency, for the calls whose duration depends on their size
+         * rather than on the load, which would mislead the limit.
+         */
+        public void releaseUnsampled() {
+            inFlight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.takehome.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Bounded queue of the calls waiting for a permit of a rate limiter, fair between the clients: every client has its
+ * own FIFO queue of at most {@code maxWaitingPerClient} calls, and a drain grants at most one call per client, so a
+ * client bursting over its limit can neither fill the queue nor delay the other clients.
+ * <p>
+ * A waiting call holds no thread: it is a pair of callbacks, run by the thread calling {@link #drain(Predicate)},
+ * outside the lock of the queue. The permits are acquired outside the lock too, since acquiring may call a shared
+ * store; when acquiring is too slow for the draining thread, the permits are acquired elsewhere and handed over
+ * with {@link #grant(String)}. The calls still waiting at their deadline are expired, and a call whose client went
+ * away is removed with {@link WaitingCall#cancel()}, so it never takes a permit; a permit acquired for a client whose
+ * calls were all cancelled meanwhile is refunded.
+ */
+@Slf4j
+public final class FairWaitingQueue {
+    private final int maxWaiting;
+    private final int maxWaitingPerClient;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder grantedCalls = new LongAdder();
+    private final LongAdder expiredCalls = new LongAdder();
+    private final LongAdder refusedCalls = new LongAdder();
+    private final LongAdder cancelledCalls = new LongAdder();
+
+    // Guarded by lock
+    private final Map<String, ArrayDeque<WaitingCall>> waitersByClient = new LinkedHashMap<>();
+    private volatile int waiting;
+
+    /**
+     * Creates a queue on the system clock.
+     *
+     * @param maxWaiting the maximum number of waiting calls
+     * @param maxWaitingPerClient the maximum number of waiting calls of a client
+     */
+    public FairWaitingQueue(int maxWaiting, int maxWaitingPerClient) {
+        this(maxWaiting, maxWaitingPerClient, System::nanoTime);
+    }
+
+    FairWaitingQueue(int maxWaiting, int maxWaitingPerClient, LongSupplier nanoClock) {
+        this.maxWaiting = maxWaiting;
+        this.maxWaitingPerClient = maxWaitingPerClient;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Queues a call of a client.
+     *
+     * @param clientKey the client key
+     * @param maxWait the maximum time the call waits
+     * @param onGranted run when the call got its permit
+     * @param onExpired run when the call is still waiting at its deadline
+     * @return the waiting call, or null if the queue or the queue of the client is full
+     */
+    public WaitingCall offer(String clientKey, Duration maxWait, Runnable onGranted, Runnable onExpired) {
+        WaitingCall call = new WaitingCall(clientKey, nanoClock.getAsLong() + maxWait.toNanos(), onGranted, onExpired);
+        lock.lock();
+        try {
+            ArrayDeque<WaitingCall> waiters = waitersByClient.get(clientKey);
+            if (waiting >= maxWaiting || (waiters != null && waiters.size() >= maxWaitingPerClient)) {
+                refusedCalls.increment();
+                return null;
+            }
+            if (waiters == null) {
+                waiters = new ArrayDeque<>();
+                waitersByClient.put(clientKey, waiters);
+            }
+            waiters.addLast(call);
+            waiting++;
+            return call;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Expires the calls past their deadline, then grants the oldest call of every client which gets a permit.
+     *
+     * @param tryAcquire acquires a permit for a client key, without waiting; it is called without the lock of the queue
+     * @param refund gives back the permit of a client key whose calls were all cancelled while it was acquired
+     */
+    public void drain(Predicate<String> tryAcquire, Consumer<String> refund) {
+        List<Runnable> callbacks = new ArrayList<>();
+        List<String> clients = new ArrayList<>();
+        long now = nanoClock.getAsLong();
+        lock.lock();
+        try {
+            Iterator<Map.Entry<String, ArrayDeque<WaitingCall>>> entries = waitersByClient.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, ArrayDeque<WaitingCall>> client = entries.next();
+                ArrayDeque<WaitingCall> waiters = client.getValue();
+                // The calls of a client are queued in the order of their deadlines
+                while (!waiters.isEmpty() && now - waiters.peekFirst().deadlineNanos >= 0) {
+                    callbacks.add(waiters.pollFirst().onExpired);
+                    expiredCalls.increment();
+                }
+                if (waiters.isEmpty()) {
+                    entries.remove();
+                } else {
+                    clients.add(client.getKey());
+                }
+            }
+            updateWaiting();
+        } finally {
+            lock.unlock();
+        }
+
+        List<String> permitted = new ArrayList<>();
+        for (String client : clients) {
+            if (tryAcquire.test(client)) {
+                permitted.add(client);
+            }
+        }
+
+        List<String> refunded = new ArrayList<>();
+        if (!permitted.isEmpty()) {
+            lock.lock();
+            try {
+                for (String client : permitted) {
+                    // The calls cancelled meanwhile leave the permit to the next call of the client, if any
+                    Runnable onGranted = pollOldest(client);
+                    if (onGranted != null) {
+                        callbacks.add(onGranted);
+                    } else {
+                        refunded.add(client);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        run(callbacks);
+        refunded.forEach(refund);
+    }
+
+    /**
+     * Grants the oldest call of a client with a permit acquired outside of {@link #drain(Predicate, Consumer)}.
+     *
+     * @param clientKey the client key
+     * @return whether a call got the permit, false if the client has no waiting call left and the permit must be refunded
+     */
+    public boolean grant(String clientKey) {
+        Runnable onGranted;
+        lock.lock();
+        try {
+            onGranted = pollOldest(clientKey);
+        } finally {
+            lock.unlock();
+        }
+        if (onGranted == null) {
+            return false;
+        }
+        run(List.of(onGranted));
+        return true;
+    }
+
+    /**
+     * Expires all the waiting calls, when the application stops.
+     */
+    public void expireAll() {
+        List<Runnable> callbacks = new ArrayList<>();
+        lock.lock();
+        try {
+            for (ArrayDeque<WaitingCall> waiters : waitersByClient.values()) {
+                for (WaitingCall waiter : waiters) {
+                    callbacks.add(waiter.onExpired);
+                    expiredCalls.increment();
+                }
+            }
+            waitersByClient.clear();
+            waiting = 0;
+        } finally {
+            lock.unlock();
+        }
+        run(callbacks);
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public long getGrantedCalls() {
+        return grantedCalls.sum();
+    }
+
+    public long getExpiredCalls() {
+        return expiredCalls.sum();
+    }
+
+    public long getRefusedCalls() {
+        return refusedCalls.sum();
+    }
+
+    public long getCancelledCalls() {
+        return cancelledCalls.sum();
+    }
+
+    /**
+     * Removes the oldest call of a client to grant it, under the lock.
+     *
+     * @return the callback of the granted call, or null if the client has no waiting call
+     */
+    private Runnable pollOldest(String clientKey) {
+        ArrayDeque<WaitingCall> waiters = waitersByClient.get(clientKey);
+        if (waiters == null) {
+            return null;
+        }
+        WaitingCall call = waiters.pollFirst();
+        if (waiters.isEmpty()) {
+            waitersByClient.remove(clientKey);
+        }
+        waiting--;
+        grantedCalls.increment();
+        return call.onGranted;
+    }
+
+    private void updateWaiting() {
+        waiting = waitersByClient.values().stream().mapToInt(ArrayDeque::size).sum();
+    }
+
+    private static void run(List<Runnable> callbacks) {
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                // The call may have been cancelled meanwhile, the other calls are still answered
+                log.debug("Error answering a waiting call", e);
+            }
+        }
+    }
+
+    /**
+     * A call waiting in the queue.
+     */
+    public final class WaitingCall {
+        private final String clientKey;
+        private final long deadlineNanos;
+        private final Runnable onGranted;
+        private final Runnable onExpired;
+
+        private WaitingCall(String clientKey, long deadlineNanos, Runnable onGranted, Runnable onExpired) {
+            this.clientKey = clientKey;
+            this.deadlineNanos = deadlineNanos;
+            this.onGranted = onGranted;
+            this.onExpired = onExpired;
+        }
+
+        /**
+         * Removes the call from the queue, when its client went away; none of its callbacks runs afterwards,
+         * unless the call was being granted or expired already.
+         *
+         * @return whether the call was still waiting
+         */
+        public boolean cancel() {
+            lock.lock();
+            try {
+                ArrayDeque<WaitingCall> waiters = waitersByClient.get(clientKey);
+                if (waiters == null || !waiters.remove(this)) {
+                    return false;
+                }
+                if (waiters.isEmpty()) {
+                    waitersByClient.remove(clientKey);
+                }
+                waiting--;
+                cancelledCalls.increment();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.takehome.ratelimit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limiter keeping a separate token bucket for every client key, e.g. a remote address or a user name.
+ * Every key gets {@code limitForPeriod} permits per {@code limitRefreshPeriod}, refilled continuously, and may
+ * use them in a burst.
+ * <p>
+ * A bucket is a single {@link AtomicLong} holding the theoretical arrival time of the next permit (GCRA), so
+ * acquiring a permit is one compare-and-set, without locks. The buckets are spread over independent
+ * {@link ConcurrentHashMap} stripes by the hash of the key, and only a new key touches a stripe for writing.
+ * <p>
+ * The memory is bounded by {@code maxKeys}: a bucket whose theoretical arrival time has passed is full, so it
+ * behaves exactly like a missing one and is evicted, when its stripe is full and by {@link #evictIdle()}.
+ * A full stripe is scanned at most once per emission interval; the new keys arriving meanwhile, or while
+ * the stripe is full of active clients, share the overflow bucket of the stripe, so they are still limited.
+ */
+public final class KeyedRateLimiter {
+    private final String name;
+    private final int limitForPeriod;
+    private final long periodNanos;
+    private final long emissionIntervalNanos;
+    private final Stripe[] stripes;
+    private final int maxKeysPerStripe;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private final LongAdder permittedCalls = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    /**
+     * Creates a rate limiter on the system clock.
+     *
+     * @param name the name of the limiter
+     * @param limitForPeriod the number of permits of a key per period
+     * @param limitRefreshPeriod the period
+     * @param maxKeys the maximum number of tracked keys
+     * @param stripeCount the number of stripes, rounded up to a power of 2
+     */
+    public KeyedRateLimiter(String name, int limitForPeriod, Duration limitRefreshPeriod, int maxKeys, int stripeCount) {
+        this(name, limitForPeriod, limitRefreshPeriod, maxKeys, stripeCount, System::nanoTime);
+    }
+
+    KeyedRateLimiter(String name, int limitForPeriod, Duration limitRefreshPeriod, int maxKeys, int stripeCount,
+                     LongSupplier nanoClock) {
+        if (limitForPeriod < 1 || maxKeys < 1 || stripeCount < 1) {
+            throw new IllegalArgumentException("The limit, the maximum number of keys and the stripe count must be positive");
+        }
+        this.name = name;
+        this.limitForPeriod = limitForPeriod;
+        this.periodNanos = limitRefreshPeriod.toNanos();
+        this.emissionIntervalNanos = periodNanos / limitForPeriod;
+        this.stripes = new Stripe[stripeCount == 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.maxKeysPerStripe = Math.max(1, (maxKeys + stripes.length - 1) / stripes.length);
+        this.nanoClock = nanoClock;
+        // The times are relative to the creation, so a new bucket (time 0) is full
+        this.startNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Acquires permits for a key, without waiting.
+     *
+     * @param key the client key
+     * @param permits the number of permits, more than the limit per period is never permitted
+     * @return whether the permits were acquired
+     */
+    public boolean tryAcquire(String key, int permits) {
+        long now = now();
+        Bucket bucket = bucket(key, now);
+        long increment = emissionIntervalNanos * permits;
+        while (true) {
+            long arrival = bucket.theoreticalArrival.get();
+            long next = Math.max(arrival, now) + increment;
+            if (next - now > periodNanos) {
+                bucket.rejectedCalls.increment();
+                rejectedCalls.increment();
+                return false;
+            }
+            if (bucket.theoreticalArrival.compareAndSet(arrival, next)) {
+                permittedCalls.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back permits acquired for a key and not used, e.g. because another limit rejected the call.
+     * The call is then counted as neither permitted nor rejected.
+     *
+     * @param key the client key
+     * @param permits the number of permits, acquired by a successful {@link #tryAcquire(String, int)}
+     */
+    public void refund(String key, int permits) {
+        Stripe stripe = stripe(key);
+        // The key acquired from the overflow bucket if it is not tracked
+        Bucket bucket = stripe.buckets.getOrDefault(key, stripe.overflow);
+        bucket.theoreticalArrival.addAndGet(-emissionIntervalNanos * permits);
+        permittedCalls.decrement();
+    }
+
+    /**
+     * Computes how long a key waits before the given permits are available.
+     *
+     * @param key the client key
+     * @param permits the number of permits
+     * @return the wait, zero if the permits are available now
+     */
+    public Duration timeToRefill(String key, int permits) {
+        long now = now();
+        Bucket bucket = stripe(key).buckets.get(key);
+        long arrival = bucket == null ? 0 : bucket.theoreticalArrival.get();
+        long wait = Math.max(arrival, now) + emissionIntervalNanos * permits - periodNanos - now;
+        return Duration.ofNanos(Math.max(0, wait));
+    }
+
+    /**
+     * Removes the buckets of the keys which have all their permits again.
+     * Their rejection counts are dropped with them.
+     *
+     * @return the number of removed keys
+     */
+    public int evictIdle() {
+        long now = now();
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            evicted += stripe.evictIdle(now);
+        }
+        return evicted;
+    }
+
+    /**
+     * Lists the tracked keys with the most rejected calls.
+     *
+     * @param limit the maximum number of keys
+     * @return the keys and their rejection counts, from the most rejected
+     */
+    public List<KeyRejections> topRejectedKeys(int limit) {
+        List<KeyRejections> rejections = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            for (Map.Entry<String, Bucket> entry : stripe.buckets.entrySet()) {
+                long rejected = entry.getValue().rejectedCalls.sum();
+                if (rejected > 0) {
+                    rejections.add(new KeyRejections(entry.getKey(), rejected));
+                }
+            }
+        }
+        return rejections.stream()
+                .sorted(Comparator.comparingLong(KeyRejections::rejectedCalls).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * @return the number of tracked keys
+     */
+    public int trackedKeys() {
+        int keys = 0;
+        for (Stripe stripe : stripes) {
+            keys += stripe.buckets.size();
+        }
+        return keys;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimitForPeriod() {
+        return limitForPeriod;
+    }
+
+    /**
+     * @return the time to refill one permit
+     */
+    public Duration getEmissionInterval() {
+        return Duration.ofNanos(emissionIntervalNanos);
+    }
+
+    public long getPermittedCalls() {
+        return permittedCalls.sum();
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    private long now() {
+        return nanoClock.getAsLong() - startNanos;
+    }
+
+    private Stripe stripe(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private Bucket bucket(String key, long now) {
+        Stripe stripe = stripe(key);
+        Bucket bucket = stripe.buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (stripe.buckets.size() >= maxKeysPerStripe && !stripe.evictIdleWhenFull(now, emissionIntervalNanos)) {
+            return stripe.overflow;
+        }
+        return stripe.buckets.computeIfAbsent(key, k -> new Bucket());
+    }
+
+    /**
+     * A key and its number of rejected calls.
+     *
+     * @param key the client key
+     * @param rejectedCalls the number of rejected calls since the key is tracked
+     */
+    public record KeyRejections(String key, long rejectedCalls) {
+    }
+
+    /**
+     * Token bucket of a key.
+     */
+    private static final class Bucket {
+        /**
+         * The time the bucket is full again, in nanoseconds since the creation of the limiter.
+         */
+        private final AtomicLong theoreticalArrival = new AtomicLong();
+        private final LongAdder rejectedCalls = new LongAdder();
+    }
+
+    /**
+     * Part of the buckets, with the overflow bucket of its keys.
+     */
+    private static final class Stripe {
+        private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+        private final Bucket overflow = new Bucket();
+
+        /**
+         * The time the next scan of the full stripe is allowed, to keep the acquisitions of new keys cheap.
+         */
+        private final AtomicLong nextScan = new AtomicLong();
+
+        private boolean evictIdleWhenFull(long now, long scanIntervalNanos) {
+            long scan = nextScan.get();
+            if (now < scan || !nextScan.compareAndSet(scan, now + scanIntervalNanos)) {
+                return false;
+            }
+            return evictIdle(now) > 0;
+        }
+
+        private int evictIdle(long now) {
+            int evicted = 0;
+            for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+                // Conditional removal: a bucket replaced meanwhile is kept
+                if (entry.getValue().theoreticalArrival.get() <= now && buckets.remove(entry.getKey(), entry.getValue())) {
+                    evicted++;
+                }
+            }
+            return evicted;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.takehome.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Cluster-wide limit of a rate limiter: the permits of every key are leased in batches from a {@link PermitLeaseStore}
+ * shared by all the nodes, and the calls take them from the local lease, so the store is called once per lease
+ * rather than once per call. The leased permits expire after the limit refresh period, so a node can not hoard them,
+ * and the permits left unused in an expired lease are given back to the store, with the next renewal of the key
+ * or when {@link #evictExpired()} removes the lease, so the idle nodes do not lower the limit of the others.
+ * <p>
+ * Taking a permit from a lease is lock-free. The renewal of the lease of a key is single-flight: one call leases from
+ * the store, without holding any lock, and the concurrent calls of the same key wait for its result and take their
+ * permits from the renewed lease, so they do not lease twice. At most {@code maxKeys} leases are kept; the keys arriving when the table
+ * is full lease the exact permits of every call until {@link #evictExpired()} makes room.
+ * <p>
+ * When the store fails, the calls are permitted (the per node limit still applies) and the store is not called
+ * again before the retry delay, so the countries endpoints do not depend on the availability of the store.
+ */
+@Slf4j
+public final class LeasedPermits {
+    private final String name;
+    private final PermitLeaseStore store;
+    private final int limitForPeriod;
+    private final Duration limitRefreshPeriod;
+    private final int leaseSize;
+    private final int maxKeys;
+    private final long retryAfterNanos;
+    private final LongSupplier nanoClock;
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final LongAdder leaseCount = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder failedLeases = new LongAdder();
+    private volatile long storeAvailableAtNanos;
+
+    /**
+     * Creates the cluster-wide limit of a rate limiter, on the system clock.
+     *
+     * @param name the name of the rate limiter, the prefix of the bucket keys in the store
+     * @param store the shared store
+     * @param limitForPeriod the number of permits of a key per period, for the whole cluster
+     * @param limitRefreshPeriod the period
+     * @param leaseFraction the share of the limit leased at once, between 0 and 1
+     * @param maxKeys the maximum number of leases kept
+     * @param retryAfter the delay before the store is called again after a failure
+     */
+    public LeasedPermits(String name, PermitLeaseStore store, int limitForPeriod, Duration limitRefreshPeriod,
+                         double leaseFraction, int maxKeys, Duration retryAfter) {
+        this(name, store, limitForPeriod, limitRefreshPeriod, leaseFraction, maxKeys, retryAfter, System::nanoTime);
+    }
+
+    LeasedPermits(String name, PermitLeaseStore store, int limitForPeriod, Duration limitRefreshPeriod,
+                  double leaseFraction, int maxKeys, Duration retryAfter, LongSupplier nanoClock) {
+        this.name = name;
+        this.store = store;
+        this.limitForPeriod = limitForPeriod;
+        this.limitRefreshPeriod = limitRefreshPeriod;
+        this.leaseSize = Math.max(1, Math.min(limitForPeriod, (int) Math.ceil(limitForPeriod * leaseFraction)));
+        this.maxKeys = maxKeys;
+        this.retryAfterNanos = retryAfter.toNanos();
+        this.nanoClock = nanoClock;
+        this.storeAvailableAtNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Acquires permits for a key from its lease, renewing the lease from the store when it has not enough permits.
+     *
+     * @param key the client key
+     * @param permits the number of permits
+     * @return whether the permits were acquired
+     */
+    public boolean tryAcquire(String key, int permits) {
+        long now = nanoClock.getAsLong();
+        Lease lease = leases.get(key);
+        if (lease == null) {
+            if (leases.size() >= maxKeys) {
+                return leaseFromStore(key, 0, permits, permits, now) >= permits || reject();
+            }
+            lease = leases.computeIfAbsent(key, k -> new Lease(now));
+        }
+        for (int attempt = 0; ; attempt++) {
+            if (lease.tryTake(permits, attempt == 0 ? now : nanoClock.getAsLong())) {
+                return true;
+            }
+            CompletableFuture<Void> renewal = new CompletableFuture<>();
+            CompletableFuture<Void> inFlight = lease.renewal.compareAndExchange(null, renewal);
+            if (inFlight == null) {
+                return renew(lease, key, permits, renewal);
+            }
+            if (attempt > 0) {
+                // The lease was renewed for this call already, and used up by the concurrent calls
+                return reject();
+            }
+            // Another call is renewing the lease, its permits are shared
+            inFlight.join();
+        }
+    }
+
+    /**
+     * Renews the lease of a key from the store, as the only renewal in flight for the key.
+     *
+     * @param lease the lease of the key
+     * @param key the client key
+     * @param permits the number of permits of the call
+     * @param renewal completed once the lease is renewed, for the calls waiting for it
+     * @return whether the permits were acquired
+     */
+    private boolean renew(Lease lease, String key, int permits, CompletableFuture<Void> renewal) {
+        try {
+            long now = nanoClock.getAsLong();
+            // Another call may have renewed the lease meanwhile
+            if (lease.tryTake(permits, now)) {
+                return true;
+            }
+            // The unused permits of an expired lease are given back with the renewal, in the same round-trip
+            int unused = lease.drainIfExpired(now);
+            int granted = leaseFromStore(key, unused, Math.max(permits, leaseSize), permits, now);
+            if (granted >= permits) {
+                lease.renew(granted - permits, now + limitRefreshPeriod.toNanos());
+                return true;
+            }
+            // The permits granted are kept for the smaller calls
+            lease.renew(granted, now + limitRefreshPeriod.toNanos());
+            return reject();
+        } finally {
+            lease.renewal.set(null);
+            renewal.complete(null);
+        }
+    }
+
+    /**
+     * Gives back permits acquired for a call which is not served after all, to the lease of the key.
+     * The permits of an expired lease are given back to the store with its next renewal or eviction.
+     *
+     * @param key the client key
+     * @param permits the number of permits
+     */
+    public void refund(String key, int permits) {
+        Lease lease = leases.get(key);
+        if (lease != null) {
+            lease.remaining.addAndGet(permits);
+        }
+    }
+
+    /**
+     * Removes the expired leases, and gives their unused permits back to the store in one batch.
+     *
+     * @return the number of removed leases
+     */
+    public int evictExpired() {
+        long now = nanoClock.getAsLong();
+        int evicted = 0;
+        Map<String, Integer> unusedPermits = new HashMap<>();
+        for (Map.Entry<String, Lease> entry : leases.entrySet()) {
+            Lease lease = entry.getValue();
+            if (lease.isExpired(now) && lease.renewal.get() == null && leases.remove(entry.getKey(), lease)) {
+                evicted++;
+                int unused = lease.drainIfExpired(now);
+                if (unused > 0) {
+                    unusedPermits.put(name + ":" + entry.getKey(), unused);
+                }
+            }
+        }
+        if (!unusedPermits.isEmpty() && now - storeAvailableAtNanos >= 0) {
+            try {
+                store.release(unusedPermits, limitForPeriod, limitRefreshPeriod);
+            } catch (RuntimeException e) {
+                failedLeases.increment();
+                storeAvailableAtNanos = now + retryAfterNanos;
+                log.warn("Error releasing the unused permits of the rate limiter " + name, e);
+            }
+        }
+        return evicted;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getLeaseCount() {
+        return leaseCount.sum();
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    public long getFailedLeases() {
+        return failedLeases.sum();
+    }
+
+    /**
+     * Leases permits from the store.
+     *
+     * @param key the client key
+     * @param released the number of unused permits of the previous lease, given back to the store
+     * @param requested the number of permits to lease
+     * @param needed the number of permits of the call, granted as a whole when the store fails
+     * @param now the current time
+     * @return the number of permits granted
+     */
+    private int leaseFromStore(String key, int released, int requested, int needed, long now) {
+        if (now - storeAvailableAtNanos < 0) {
+            return needed;
+        }
+        try {
+            leaseCount.increment();
+            return store.lease(name + ":" + key, released, requested, limitForPeriod, limitRefreshPeriod);
+        } catch (RuntimeException e) {
+            failedLeases.increment();
+            storeAvailableAtNanos = now + retryAfterNanos;
+            log.warn("Error leasing permits of the rate limiter " + name + ", only the node limits apply for "
+                    + Duration.ofNanos(retryAfterNanos), e);
+            return needed;
+        }
+    }
+
+    private boolean reject() {
+        rejectedCalls.increment();
+        return false;
+    }
+
+    /**
+     * Permits of a key leased by this node.
+     */
+    private static final class Lease {
+        private final AtomicInteger remaining = new AtomicInteger();
+        private volatile long expiresAtNanos;
+
+        /**
+         * The renewal in flight, null when the lease is not being renewed.
+         */
+        private final AtomicReference<CompletableFuture<Void>> renewal = new AtomicReference<>();
+
+        /**
+         * Creates an expired lease, renewed by the first call.
+         */
+        private Lease(long now) {
+            this.expiresAtNanos = now;
+        }
+
+        private boolean tryTake(int permits, long now) {
+            if (isExpired(now)) {
+                return false;
+            }
+            while (true) {
+                int available = remaining.get();
+                if (available < permits) {
+                    return false;
+                }
+                if (remaining.compareAndSet(available, available - permits)) {
+                    return true;
+                }
+            }
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+
+        /**
+         * Takes the permits left in the lease once it expired, they can not be taken by the calls anymore.
+         *
+         * @return the number of unused permits, 0 when the lease is not expired
+         */
+        private int drainIfExpired(long now) {
+            return isExpired(now) ? remaining.getAndSet(0) : 0;
+        }
+
+        /**
+         * Adds the leased permits to the ones left, which are kept when the lease is not expired.
+         */
+        private void renew(int permits, long expiresAtNanos) {
+            remaining.addAndGet(permits);
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.takehome.ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Shared state of the rate limiters of all the application nodes, from which every node leases permits in batches,
+ * see {@link LeasedPermits}. The buckets follow the same continuous refill as {@link KeyedRateLimiter}.
+ */
+public interface PermitLeaseStore {
+
+    /**
+     * Gives back the unused permits of the previous lease of a shared bucket and takes up to the requested permits,
+     * in one round-trip. The bucket never holds more than its limit, so giving back expired permits is harmless.
+     *
+     * @param bucketKey the key of the bucket, shared by all the nodes
+     * @param releasedPermits the number of unused permits given back, possibly 0
+     * @param requestedPermits the number of permits wanted
+     * @param limitForPeriod the number of permits of the bucket per period
+     * @param limitRefreshPeriod the period
+     * @return the number of permits granted, from 0 to the requested permits
+     */
+    int lease(String bucketKey, int releasedPermits, int requestedPermits, int limitForPeriod, Duration limitRefreshPeriod);
+
+    /**
+     * Gives back the unused permits of leases which are not renewed, in one round-trip.
+     *
+     * @param releasedPermits the number of unused permits per bucket key
+     * @param limitForPeriod the number of permits of the buckets per period
+     * @param limitRefreshPeriod the period
+     */
+    void release(Map<String, Integer> releasedPermits, int limitForPeriod, Duration limitRefreshPeriod);
+
+    /**
+     * Deletes the buckets which have all their permits again, they behave like missing ones.
+     *
+     * @return the number of deleted buckets
+     */
+    int deleteIdleBuckets();
+}
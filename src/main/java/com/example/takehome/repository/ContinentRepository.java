@@ -0,0 +1,13 @@
+package com.example.takehome.repository;
+
+import com.example.takehome.model.Continent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The ContinentRepository interface provides the methods for interacting
+ * with the Continent entity {@link Continent} in the database.
+ */
+@Repository
+public interface ContinentRepository extends JpaRepository<Continent, String> {
+}
@@ -2,8 +2,14 @@ package com.example.takehome.repository;
 
 import com.example.takehome.model.Country;
 import com.example.takehome.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -15,9 +21,21 @@ import java.util.List;
 public interface CountryRepository extends JpaRepository<Country, String> {
 
     /**
-     Retrieves a list of countries by their codes.
+     Retrieves a list of countries by their codes, with their continents fetched by the same query.
      @param countryList A list of country codes to search for.
      @return A list of countries matching the provided codes.
      */
+    @EntityGraph(attributePaths = "continent")
     List<Country> findCountriesByCodeIn(List<String> countryList);
+
+    /**
+     Retrieves all the countries which belong to a continent, with their continents, in a single query.
+     The entities are loaded read-only, without the snapshots used by dirty checking, since they are only copied
+     into the in-memory catalog. The continent rosters are built from the result, not from the lazy collections.
+     @return all the countries which belong to a continent
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select country from Country country join fetch country.continent")
+    List<Country> findAllWithContinent();
 }
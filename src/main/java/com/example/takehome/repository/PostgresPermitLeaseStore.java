@@ -0,0 +1,85 @@
+package com.example.takehome.repository;
+
+import com.example.takehome.ratelimit.PermitLeaseStore;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PostgreSQL implementation of the {@link PermitLeaseStore}, on the rate_limit_bucket table of the application database.
+ * A lease is one call of the lease_rate_limit_permits function, which locks the row of the bucket, refills it on the
+ * database clock (so the clocks of the nodes do not matter) and takes the granted permits, see V5__Create_Rate_Limit_Bucket.sql.
+ * It is enabled by the countries.rate-limit.cluster.enabled application property.
+ * <p>
+ * The leases are taken by the request threads, so they use a small pool of their own, apart from the pool of the
+ * application, with a short connection timeout and a statement timeout set on its connections: a slow or locked database
+ * fails the lease quickly, and the calls fall back to the node limits, instead of holding the request threads.
+ */
+@Repository
+@ConditionalOnProperty(name = "countries.rate-limit.cluster.enabled", havingValue = "true")
+public class PostgresPermitLeaseStore implements PermitLeaseStore {
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates the connection pool of the leases, on the primary database.
+     *
+     * @param properties the spring.datasource properties
+     * @param maximumPoolSize the maximum number of connections of the leases
+     * @param connectionTimeout the maximum wait for a connection
+     * @param statementTimeout the maximum duration of a lease or release statement
+     */
+    public PostgresPermitLeaseStore(DataSourceProperties properties,
+                                    @Value("${countries.rate-limit.cluster.maximum-pool-size:4}") int maximumPoolSize,
+                                    @Value("${countries.rate-limit.cluster.connection-timeout:250ms}") Duration connectionTimeout,
+                                    @Value("${countries.rate-limit.cluster.statement-timeout:500ms}") Duration statementTimeout) {
+        this.dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("rate-limit");
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+        dataSource.addDataSourceProperty("options", "-c statement_timeout=" + statementTimeout.toMillis());
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public int lease(String bucketKey, int releasedPermits, int requestedPermits, int limitForPeriod, Duration limitRefreshPeriod) {
+        Integer granted = jdbcTemplate.queryForObject("select lease_rate_limit_permits(?, ?, ?, ?, ?)", Integer.class,
+                bucketKey, releasedPermits, requestedPermits, limitForPeriod, limitRefreshPeriod.toNanos() / 1_000L);
+        return granted == null ? 0 : granted;
+    }
+
+    @Override
+    public void release(Map<String, Integer> releasedPermits, int limitForPeriod, Duration limitRefreshPeriod) {
+        // The interval between two permits, as computed by lease_rate_limit_permits
+        long interval = limitRefreshPeriod.toNanos() / 1_000L / limitForPeriod;
+        List<Object[]> batchArgs = releasedPermits.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue() * interval, entry.getKey()})
+                .toList();
+        jdbcTemplate.batchUpdate(
+                "update rate_limit_bucket set theoretical_arrival = theoretical_arrival - ? where bucket_key = ?",
+                batchArgs);
+    }
+
+    @Override
+    public int deleteIdleBuckets() {
+        return jdbcTemplate.update("""
+                delete from rate_limit_bucket
+                where theoretical_arrival < (extract(epoch from clock_timestamp()) * 1000000)::bigint""");
+    }
+
+    /**
+     * Closes the connection pool of the leases.
+     */
+    @PreDestroy
+    public void close() {
+        dataSource.close();
+    }
+}
@@ -3,6 +3,7 @@ package com.example.takehome.repository;
 import com.example.takehome.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -12,5 +13,11 @@ import java.util.Optional;
  */
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    /**
+     Retrieves a user by email, in a read-only transaction which can be served by a read replica.
+     @param email the email of the user
+     @return the user, or empty if no user has this email
+     */
+    @Transactional(readOnly = true)
     Optional<User> findByEmail(String email);
 }
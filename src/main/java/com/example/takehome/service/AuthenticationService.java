@@ -2,17 +2,25 @@ package com.example.takehome.service;
 
 import com.example.takehome.dto.auth.AuthenticationRequest;
 import com.example.takehome.dto.auth.AuthenticationResponse;
+import com.example.takehome.exception.TooManyLoginsException;
 import com.example.takehome.model.User;
-import com.example.takehome.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 /**
  This class provides the functionality to authenticate a user based on email and password
- by using an instance of AuthenticationManager, UserRepository and JwtTokenService.
+ by using an instance of AuthenticationManager and JwtTokenService.
+ The user id and roles are added as claims of the token, so that the requests using it
+ are authenticated without loading the user from the database.
+ The endpoints run the logins on the {@link PasswordHashingExecutor}, which isolates the slow password checks.
  The class is marked as a Service and is expected to be used in the context of a Spring
  application. It also uses Lombok's RequiredArgsConstructor annotation to generate a constructor
  that injects the dependencies.
@@ -20,9 +28,20 @@ import org.springframework.stereotype.Service;
 @Service
 @RequiredArgsConstructor
 public class AuthenticationService {
-    private final UserRepository userRepository;
     private final JwtTokenService jwtTokenService;
     private final AuthenticationManager authenticationManager;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    /**
+     * Authenticates the user on the {@link PasswordHashingExecutor}, see {@link #authenticate(AuthenticationRequest)}.
+     *
+     * @param request the {@link AuthenticationRequest} object containing the user's email and password
+     * @return the future {@link AuthenticationResponse}, completed with an {@link AuthenticationException} if authentication fails
+     * @throws TooManyLoginsException if too many logins are already waiting
+     */
+    public CompletableFuture<AuthenticationResponse> authenticateAsync(AuthenticationRequest request) {
+        return passwordHashingExecutor.submit(() -> authenticate(request));
+    }
 
     /**
      * Authenticates the user by verifying the email and password provided in the {@link AuthenticationRequest}.
@@ -32,14 +51,16 @@ public class AuthenticationService {
      * @throws AuthenticationException if authentication fails
      */
     public AuthenticationResponse authenticate(AuthenticationRequest request) {
-        // Authenticate the user (verify email and pwd)
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
+        // Authenticate the user (verify email and pwd), the principal is the user loaded for the verification
+        User user = (User) authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
                                 request.getEmail(),
-                                request.getPassword()));
-
-        User user = userRepository.findByEmail(request.getEmail()).orElseThrow();
+                                request.getPassword()))
+                .getPrincipal();
 
-        String jwtToken = jwtTokenService.generateToken(user);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtTokenService.USER_ID_CLAIM, user.getId());
+        claims.put(JwtTokenService.ROLES_CLAIM, user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        String jwtToken = jwtTokenService.generateToken(claims, user);
 
         return AuthenticationResponse.builder()
                 .token(jwtToken)
@@ -0,0 +1,46 @@
+package com.example.takehome.service;
+
+import com.example.takehome.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+/**
+ Service class loading the users of the JWT tokens which do not carry the user claims, see {@link JwtTokenService.VerifiedToken}.
+ The users are cached in the userDetailsCache (bounded, with a TTL, see ehcache.xml) and the cache is cleared
+ whenever a user changes, see {@link UserCacheEvictionListener}.
+ The cache holds immutable copies of the users without their password hash, never the JPA entities.
+ The login still loads the user from the database, through the user details service of the authentication provider.
+ */
+@Service
+@RequiredArgsConstructor
+public class CachedUserDetailsService implements UserDetailsService {
+    private final UserRepository userRepository;
+
+    /**
+     Loads a user by email, from the cache when possible.
+     @param userName the email of the user
+     @return an immutable copy of the user, with an empty password
+     @throws UsernameNotFoundException if no user has this email, which is not cached
+     */
+    @Override
+    @Cacheable("userDetailsCache")
+    public UserDetails loadUserByUsername(String userName) {
+        return userRepository.findByEmail(userName)
+                .map(user -> User.withUserDetails(user).password("").build())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found for userName = " + userName));
+    }
+
+    /**
+     Clears the cached users.
+     */
+    @CacheEvict(value = "userDetailsCache", allEntries = true)
+    public void evictAll() {
+        // The cache is cleared by the annotation
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.takehome.service;
+
+import com.example.takehome.dto.graphql.ContinentGqlData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ Service class refreshing the country data periodically from the GraphQL API, without a redeployment.
+ The changed rows are written to the database in one transaction, then the in-memory catalog is swapped
+ and the cached results are evicted. The current catalog is kept when the API fails or returns no data.
+ It is enabled by the catalog.refresh.enabled application property.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "catalog.refresh.enabled", havingValue = "true")
+public class CatalogRefreshService {
+    private final GraphQlService graphQlService;
+    private final CountryDataSyncService countryDataSyncService;
+    private final CountryService countryService;
+
+    /**
+     Runs the refresh with the delays configured in application properties.
+     Errors are logged and the next run is still scheduled.
+     */
+    @Scheduled(initialDelayString = "${catalog.refresh.initial-delay}", fixedDelayString = "${catalog.refresh.interval}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("Error refreshing the country catalog, the current catalog is kept", e);
+        }
+    }
+
+    /**
+     Fetches the source data, synchronizes the database and swaps the catalog if any row changed.
+     @return the number of rows written
+     @throws IllegalStateException if the GraphQL API returns no continents
+     */
+    public CountryDataSyncService.SyncResult refresh() {
+        ContinentGqlData continentData = graphQlService.getContinentsWithCountries();
+        List<ContinentGqlData.Continent> continents = continentData == null || continentData.getData() == null
+                ? null : continentData.getData().getContinents();
+        if (continents == null || continents.isEmpty()) {
+            // Never wipe the tables because of a partial or failed upstream response
+            throw new IllegalStateException("The GraphQL API returned no continents");
+        }
+
+        CountryDataSyncService.SyncResult result = countryDataSyncService.synchronize(continents);
+        if (result.hasChanges()) {
+            // Swaps the catalog and evicts the cached results, after the transaction is committed
+            countryService.refreshCountryCatalog();
+        }
+        return result;
+    }
+}
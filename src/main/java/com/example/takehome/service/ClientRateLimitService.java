@@ -0,0 +1,223 @@
+package com.example.takehome.service;
+
+import com.example.takehome.ratelimit.KeyedRateLimiter;
+import com.example.takehome.ratelimit.LeasedPermits;
+import com.example.takehome.ratelimit.PermitLeaseStore;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ Service class applying the rate limiters of the countries endpoints per client: every remote address of the public
+ endpoints and every user of the private endpoints has its own permits, so one noisy client does not exhaust them
+ for everyone. The limits of a client are the ones of the Resilience4j instance of the same name in application properties.
+ The permitted and rejected calls and the number of tracked clients of every limiter are published as metrics,
+ the most rejected clients by the ratelimiterclients actuator endpoint.
+ <p>
+ The limits apply per application node. When a {@link PermitLeaseStore} is enabled (countries.rate-limit.cluster.enabled),
+ the calls permitted by the node also take their permits from leases of the limits shared by all the nodes,
+ see {@link LeasedPermits}, so the limits hold for the whole cluster.
+ */
+@Slf4j
+@Service
+public class ClientRateLimitService {
+    public static final String NON_AUTH_RATE_LIMITER = "nonAuthCountryDataRateLimiter";
+    public static final String AUTH_RATE_LIMITER = "authCountryDataRateLimiter";
+
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final Map<String, KeyedRateLimiter> rateLimiters = new LinkedHashMap<>();
+    private final Map<String, LeasedPermits> clusterPermits = new LinkedHashMap<>();
+    private final PermitLeaseStore permitLeaseStore;
+
+    /**
+     Creates the per client rate limiters and registers their metrics.
+     @param rateLimiterRegistry the registry of the rate limiters configured in application properties
+     @param meterRegistry the registry of the metrics
+     @param maxClients the maximum number of clients tracked by every limiter
+     @param stripes the number of independent parts of the client table of every limiter
+     @param permitLeaseStore the store of the limits shared by all the nodes, if enabled
+     @param leaseFraction the share of the limit of a client leased from the store at once
+     @param retryAfter the delay before the store is used again after a failure
+     */
+    public ClientRateLimitService(RateLimiterRegistry rateLimiterRegistry,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${countries.rate-limit.max-clients:65536}") int maxClients,
+                                  @Value("${countries.rate-limit.stripes:64}") int stripes,
+                                  ObjectProvider<PermitLeaseStore> permitLeaseStore,
+                                  @Value("${countries.rate-limit.cluster.lease-fraction:0.25}") double leaseFraction,
+                                  @Value("${countries.rate-limit.cluster.retry-after:30s}") Duration retryAfter) {
+        this.rateLimiterRegistry = rateLimiterRegistry;
+        this.permitLeaseStore = permitLeaseStore.getIfAvailable();
+        for (String name : new String[]{NON_AUTH_RATE_LIMITER, AUTH_RATE_LIMITER}) {
+            RateLimiterConfig config = rateLimiterRegistry.rateLimiter(name).getRateLimiterConfig();
+            KeyedRateLimiter rateLimiter = new KeyedRateLimiter(
+                    name, config.getLimitForPeriod(), config.getLimitRefreshPeriod(), maxClients, stripes);
+            rateLimiters.put(name, rateLimiter);
+
+            FunctionCounter.builder("ratelimiter.clients.calls", rateLimiter, KeyedRateLimiter::getPermittedCalls)
+                    .description("The number of calls permitted by the per client rate limiter")
+                    .tag("name", name).tag("kind", "successful")
+                    .register(meterRegistry);
+            FunctionCounter.builder("ratelimiter.clients.calls", rateLimiter, KeyedRateLimiter::getRejectedCalls)
+                    .description("The number of calls rejected by the per client rate limiter")
+                    .tag("name", name).tag("kind", "rejected")
+                    .register(meterRegistry);
+            Gauge.builder("ratelimiter.clients.tracked", rateLimiter, KeyedRateLimiter::trackedKeys)
+                    .description("The number of clients tracked by the per client rate limiter")
+                    .tag("name", name)
+                    .register(meterRegistry);
+
+            if (this.permitLeaseStore != null) {
+                LeasedPermits leasedPermits = new LeasedPermits(name, this.permitLeaseStore, config.getLimitForPeriod(),
+                        config.getLimitRefreshPeriod(), leaseFraction, maxClients, retryAfter);
+                clusterPermits.put(name, leasedPermits);
+
+                FunctionCounter.builder("ratelimiter.clients.cluster.leases", leasedPermits, LeasedPermits::getLeaseCount)
+                        .description("The number of leases of permits from the store shared by the nodes")
+                        .tag("name", name)
+                        .register(meterRegistry);
+                FunctionCounter.builder("ratelimiter.clients.cluster.leases.failed", leasedPermits, LeasedPermits::getFailedLeases)
+                        .description("The number of failed leases, the calls are permitted by the node limits only")
+                        .tag("name", name)
+                        .register(meterRegistry);
+                FunctionCounter.builder("ratelimiter.clients.cluster.calls", leasedPermits, LeasedPermits::getRejectedCalls)
+                        .description("The number of calls permitted by the node but rejected by the cluster-wide limit")
+                        .tag("name", name).tag("kind", "rejected")
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    /**
+     Acquires permits of a rate limiter for a client, without waiting.
+     @param rateLimiterName the name of the rate limiter
+     @param clientKey the remote address or the user name of the client
+     @param permits the number of permits
+     @throws RequestNotPermitted if the client has not enough permits left
+     */
+    public void acquirePermission(String rateLimiterName, String clientKey, int permits) {
+        if (!tryAcquirePermission(rateLimiterName, clientKey, permits)) {
+            throw requestNotPermitted(rateLimiterName);
+        }
+    }
+
+    /**
+     Creates the exception of the calls rejected by a rate limiter.
+     @param rateLimiterName the name of the rate limiter
+     @return the exception, mapped to 429 Too Many Requests
+     */
+    public RequestNotPermitted requestNotPermitted(String rateLimiterName) {
+        return RequestNotPermitted.createRequestNotPermitted(rateLimiterRegistry.rateLimiter(rateLimiterName));
+    }
+
+    /**
+     Acquires permits of a rate limiter for a client, without waiting.
+     @param rateLimiterName the name of the rate limiter
+     @param clientKey the remote address or the user name of the client
+     @param permits the number of permits
+     @return true if the permits were acquired, false if the client has not enough permits left
+     */
+    public boolean tryAcquirePermission(String rateLimiterName, String clientKey, int permits) {
+        // The node limit first, so the calls it rejects never use the shared permits
+        KeyedRateLimiter rateLimiter = rateLimiters.get(rateLimiterName);
+        if (!rateLimiter.tryAcquire(clientKey, permits)) {
+            return false;
+        }
+        LeasedPermits leasedPermits = clusterPermits.get(rateLimiterName);
+        if (leasedPermits != null && !leasedPermits.tryAcquire(clientKey, permits)) {
+            // The call is not served, its node permits are left to the next calls
+            rateLimiter.refund(clientKey, permits);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     Gives back permits acquired for a call which is not served after all, to the node limit and to the lease
+     of the shared limit.
+     @param rateLimiterName the name of the rate limiter
+     @param clientKey the remote address or the user name of the client
+     @param permits the number of permits
+     */
+    public void refundPermission(String rateLimiterName, String clientKey, int permits) {
+        rateLimiters.get(rateLimiterName).refund(clientKey, permits);
+        LeasedPermits leasedPermits = clusterPermits.get(rateLimiterName);
+        if (leasedPermits != null) {
+            leasedPermits.refund(clientKey, permits);
+        }
+    }
+
+    /**
+     Checks whether a client has a permit of the node limit, without acquiring it nor counting a rejection.
+     @param rateLimiterName the name of the rate limiter
+     @param clientKey the remote address or the user name of the client
+     @return whether the next call of the client would get a permit of the node limit
+     */
+    public boolean hasPermission(String rateLimiterName, String clientKey) {
+        return rateLimiters.get(rateLimiterName).timeToRefill(clientKey, 1).isZero();
+    }
+
+    /**
+     Computes how long a rejected client should wait before calling again, for the Retry-After header.
+     @param rateLimiterName the name of the rate limiter
+     @param clientKey the remote address or the user name of the client
+     @return the wait for one permit of the node limit, at least the refill time of one permit
+     */
+    public Duration retryAfter(String rateLimiterName, String clientKey) {
+        KeyedRateLimiter rateLimiter = rateLimiters.get(rateLimiterName);
+        Duration timeToRefill = rateLimiter.timeToRefill(clientKey, 1);
+        // A call rejected by the cluster-wide limit may still have permits on this node
+        return timeToRefill.compareTo(rateLimiter.getEmissionInterval()) > 0 ? timeToRefill : rateLimiter.getEmissionInterval();
+    }
+
+    /**
+     @return whether the limits are shared by the nodes, acquiring a permission may then call the database
+     */
+    public boolean isClusterEnabled() {
+        return permitLeaseStore != null;
+    }
+
+    /**
+     @return the per client rate limiters
+     */
+    public Collection<KeyedRateLimiter> getRateLimiters() {
+        return rateLimiters.values();
+    }
+
+    /**
+     Forgets the clients which have all their permits again, and the expired leases,
+     with the delay configured in application properties.
+     */
+    @Scheduled(fixedDelayString = "${countries.rate-limit.eviction-interval:PT1M}")
+    public void evictIdleClients() {
+        for (KeyedRateLimiter rateLimiter : rateLimiters.values()) {
+            int evicted = rateLimiter.evictIdle();
+            if (evicted > 0) {
+                log.debug("Evicted " + evicted + " idle clients of the rate limiter " + rateLimiter.getName());
+            }
+        }
+        for (LeasedPermits leasedPermits : clusterPermits.values()) {
+            leasedPermits.evictExpired();
+        }
+        if (permitLeaseStore != null) {
+            try {
+                permitLeaseStore.deleteIdleBuckets();
+            } catch (RuntimeException e) {
+                log.warn("Error deleting the idle buckets of the rate limiters", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.takehome.service;
+
+import com.example.takehome.ratelimit.AdaptiveConcurrencyLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ Health indicator (concurrencyLimit) reporting the adaptive concurrency limit of the countries endpoints.
+ It is always UP: shedding requests is the limiter protecting the node, not a failure; the details tell how close to the limit it runs.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitHealthIndicator implements HealthIndicator {
+    private final ConcurrencyLimitService concurrencyLimitService;
+
+    @Override
+    public Health health() {
+        AdaptiveConcurrencyLimiter concurrencyLimiter = concurrencyLimitService.getConcurrencyLimiter();
+        return Health.up()
+                .withDetail("limit", concurrencyLimiter.getLimit())
+                .withDetail("inFlight", concurrencyLimiter.getInFlight())
+                .withDetail("rejectedCalls", concurrencyLimiter.getRejectedCalls())
+                .withDetail("shortLatency", Duration.ofNanos((long) concurrencyLimiter.getShortRttNanos()).toString())
+                .withDetail("longLatency", Duration.ofNanos((long) concurrencyLimiter.getLongRttNanos()).toString())
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.takehome.service;
+
+import com.example.takehome.exception.ConcurrencyLimitExceededException;
+import com.example.takehome.ratelimit.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ Service class limiting the concurrent requests of the countries endpoints, alongside the per client rate limiters.
+ The limit adapts to the latency of the requests (see {@link AdaptiveConcurrencyLimiter}), so the node sheds load
+ before its latency degrades, whatever the fixed rate limits are. The limit, the requests in flight and the shed
+ requests are published as the countries.concurrency metrics and in the concurrencyLimit health details.
+ <p>
+ The permit of a request is taken by a filter before any handler, for all the countries endpoints, and released
+ once the response is written, so the latency samples include the serialization and the writing of the body.
+ */
+@Service
+public class ConcurrencyLimitService {
+    /**
+     The request attribute holding the permit of the request, released once the response is written,
+     possibly by the asynchronous dispatch completing the request.
+     */
+    public static final String PERMIT_ATTRIBUTE = ConcurrencyLimitService.class.getName() + ".permit";
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     Creates the limiter with the settings configured in application properties, and registers its metrics.
+     @param meterRegistry the registry of the metrics
+     @param initialLimit the limit before any request
+     @param minLimit the lowest limit
+     @param maxLimit the highest limit
+     @param rttTolerance the ratio of the long average latency the recent latency may reach before the limit shrinks
+     @param smoothing the weight of a new limit
+     @param longWindow the number of requests of the long average latency
+     */
+    public ConcurrencyLimitService(MeterRegistry meterRegistry,
+                                   @Value("${countries.concurrency-limit.initial-limit:20}") int initialLimit,
+                                   @Value("${countries.concurrency-limit.min-limit:4}") int minLimit,
+                                   @Value("${countries.concurrency-limit.max-limit:500}") int maxLimit,
+                                   @Value("${countries.concurrency-limit.rtt-tolerance:1.5}") double rttTolerance,
+                                   @Value("${countries.concurrency-limit.smoothing:0.2}") double smoothing,
+                                   @Value("${countries.concurrency-limit.long-window:600}") int longWindow) {
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, rttTolerance, smoothing, longWindow);
+
+        Gauge.builder("countries.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("The adaptive limit of the concurrent requests of the countries endpoints")
+                .register(meterRegistry);
+        Gauge.builder("countries.concurrency.inflight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("The requests of the countries endpoints in flight")
+                .register(meterRegistry);
+        FunctionCounter.builder("countries.concurrency.rejected", concurrencyLimiter, AdaptiveConcurrencyLimiter::getRejectedCalls)
+                .description("The requests of the countries endpoints shed by the concurrency limit")
+                .register(meterRegistry);
+    }
+
+    /**
+     Acquires a permit for a request, without waiting.
+     @return the permit, to release when the request is done
+     @throws ConcurrencyLimitExceededException if the limit of the requests in flight is reached
+     */
+    public AdaptiveConcurrencyLimiter.Permit acquire() {
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire();
+        if (permit == null) {
+            throw new ConcurrencyLimitExceededException(concurrencyLimiter.getLimit());
+        }
+        return permit;
+    }
+
+    /**
+     @return the limiter, for the health details
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+}
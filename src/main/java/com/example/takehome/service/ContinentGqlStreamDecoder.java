@@ -0,0 +1,119 @@
+package com.example.takehome.service;
+
+import com.example.takehome.dto.graphql.ContinentGqlData;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Incremental decoder of the GraphQL continents response ({"data":{"continents":[...]}}).
+ The response bytes are fed to a non-blocking Jackson parser as they arrive, and every continent is
+ returned as soon as its JSON object is complete, without waiting for nor holding the whole response.
+ A decoder is stateful and decodes a single response.
+ */
+class ContinentGqlStreamDecoder {
+    // Unknown fields are ignored, like the default WebClient codecs do
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    /**
+     The tokens of the continent being decoded, null between continents.
+     */
+    private TokenBuffer continentTokens;
+    private int continentDepth;
+
+    /**
+     Creates a decoder for a new response.
+     */
+    ContinentGqlStreamDecoder() {
+        try {
+            this.parser = OBJECT_MAPPER.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     Decodes the next chunk of the response.
+     @param bytes the next bytes of the response
+     @return the continents completed by this chunk, possibly none
+     */
+    List<ContinentGqlData.Continent> decode(byte[] bytes) {
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            return nextContinents();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     Signals the end of the response.
+     @return the continents completed by the end of the response, possibly none
+     @throws UncheckedIOException if the response is truncated
+     */
+    List<ContinentGqlData.Continent> endOfInput() {
+        try {
+            feeder.endOfInput();
+            List<ContinentGqlData.Continent> continents = nextContinents();
+            if (continentTokens != null) {
+                throw new IOException("The GraphQL response ended in the middle of a continent");
+            }
+            return continents;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<ContinentGqlData.Continent> nextContinents() throws IOException {
+        List<ContinentGqlData.Continent> continents = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (continentTokens == null) {
+                if (token == JsonToken.START_OBJECT && isContinentsElement(parser.getParsingContext())) {
+                    continentTokens = new TokenBuffer(parser);
+                    continentTokens.copyCurrentEvent(parser);
+                    continentDepth = 1;
+                }
+                continue;
+            }
+            continentTokens.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                continentDepth++;
+            } else if (token.isStructEnd() && --continentDepth == 0) {
+                try (JsonParser continentParser = continentTokens.asParser(OBJECT_MAPPER)) {
+                    continents.add(OBJECT_MAPPER.readValue(continentParser, ContinentGqlData.Continent.class));
+                }
+                continentTokens = null;
+            }
+        }
+        return continents;
+    }
+
+    /**
+     Checks whether an object is an element of the data.continents array of the response.
+     @param objectContext the parsing context of the object
+     @return true for the objects of the continents array
+     */
+    private static boolean isContinentsElement(JsonStreamContext objectContext) {
+        JsonStreamContext array = objectContext.getParent();
+        JsonStreamContext data = array != null && array.inArray() ? array.getParent() : null;
+        JsonStreamContext root = data != null && data.inObject() ? data.getParent() : null;
+        return root != null && root.inObject() && root.getParent() != null && root.getParent().inRoot()
+                && "continents".equals(data.getCurrentName())
+                && "data".equals(root.getCurrentName());
+    }
+}
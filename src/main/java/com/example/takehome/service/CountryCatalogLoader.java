@@ -0,0 +1,59 @@
+package com.example.takehome.service;
+
+import com.example.takehome.catalog.CountryCatalog;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+/**
+ Component loading the country catalog of {@link CountryService} at startup.
+ It is a separate bean so that the catalog is loaded through the {@link CountryService} proxy,
+ with the annotations of {@link CountryService#refreshCountryCatalog()} applied.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CountryCatalogLoader {
+    private final CountryService countryService;
+    private final CountryCatalogSnapshotService countryCatalogSnapshotService;
+
+    /**
+     Loads the catalog at startup so that no request has to wait for the database.
+     A snapshot file younger than its maximum age is used as is, without querying the database;
+     an older one is only used when the database can not be read.
+     */
+    @PostConstruct
+    public void loadCountryCatalog() {
+        Optional<CountryCatalog> snapshot = countryCatalogSnapshotService.readSnapshot(false);
+        if (snapshot.isPresent()) {
+            countryService.serveSnapshotCatalog(snapshot.get());
+            return;
+        }
+        try {
+            countryService.refreshCountryCatalog();
+        } catch (RuntimeException e) {
+            countryService.serveSnapshotCatalog(countryCatalogSnapshotService.readSnapshot(true).orElseThrow(() -> e));
+            log.error("Error loading the country catalog from the database, serving the snapshot", e);
+        }
+    }
+
+    /**
+     Replaces the catalog read from the snapshot file at startup with the database data, once the application is ready.
+     The snapshot is kept if the database can not be read, until the next refresh.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replaceSnapshotCatalog() {
+        if (!countryService.isServingSnapshot()) {
+            return;
+        }
+        try {
+            countryService.refreshCountryCatalog();
+        } catch (RuntimeException e) {
+            log.error("Error loading the country catalog from the database, the snapshot is kept", e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.takehome.service;
+
+import com.example.takehome.catalog.CountryCatalog;
+import com.example.takehome.catalog.CountryCatalogSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+/**
+ Service class for the binary snapshot file of the country catalog, see {@link CountryCatalogSnapshot}.
+ The snapshot lets the catalog be served right after startup and while the database is unavailable.
+ It is written every time the catalog is loaded from the database, and is disabled when the
+ catalog.snapshot.path application property is blank.
+ */
+@Slf4j
+@Service
+public class CountryCatalogSnapshotService {
+    /**
+     The snapshot file, null when the snapshot is disabled.
+     */
+    private final Path snapshotPath;
+
+    /**
+     The maximum age of a snapshot read instead of the database, configured in application properties.
+     */
+    private final Duration maxAge;
+
+    public CountryCatalogSnapshotService(@Value("${catalog.snapshot.path:}") String snapshotPath,
+                                         @Value("${catalog.snapshot.max-age:P7D}") Duration maxAge) {
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.maxAge = maxAge;
+    }
+
+    /**
+     Reads the catalog from the snapshot file.
+     @param acceptStale whether a snapshot older than the maximum age is accepted
+     @return the catalog, or empty if the snapshot is disabled, missing, stale or invalid
+     */
+    public Optional<CountryCatalog> readSnapshot(boolean acceptStale) {
+        if (snapshotPath == null || !Files.isRegularFile(snapshotPath)) {
+            return Optional.empty();
+        }
+        try {
+            CountryCatalogSnapshot snapshot = CountryCatalogSnapshot.read(snapshotPath);
+            if (!acceptStale && snapshot.createdAt().plus(maxAge).isBefore(Instant.now())) {
+                log.info("Ignoring the country catalog snapshot created at " + snapshot.createdAt() + ", it is older than " + maxAge);
+                return Optional.empty();
+            }
+            log.info("Read country catalog snapshot created at " + snapshot.createdAt() + " with " + snapshot.catalog().size() + " countries");
+            return Optional.of(snapshot.catalog());
+        } catch (IOException e) {
+            log.warn("Error reading the country catalog snapshot at path: " + snapshotPath, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     Writes the catalog to the snapshot file, replacing the previous snapshot.
+     Errors are logged only, the snapshot is an optimization and the catalog stays served without it.
+     @param catalog the catalog loaded from the database
+     */
+    public void writeSnapshot(CountryCatalog catalog) {
+        if (snapshotPath == null) {
+            return;
+        }
+        try {
+            new CountryCatalogSnapshot(catalog, Instant.now()).write(snapshotPath);
+        } catch (IOException e) {
+            log.warn("Error writing the country catalog snapshot at path: " + snapshotPath, e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.takehome.service;
+
+import com.example.takehome.dto.graphql.ContinentGqlData;
+import com.example.takehome.model.Continent;
+import com.example.takehome.model.Country;
+import com.example.takehome.repository.ContinentRepository;
+import com.example.takehome.repository.CountryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ Service class synchronizing the continent and country tables with the source data of the GraphQL API.
+ The source data is compared with the current rows and only the rows which differ are written.
+ Rows missing from the source data are only deleted while they stay below the catalog.refresh.max-delete-ratio
+ share of the current rows, so a truncated upstream response can not wipe the tables.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CountryDataSyncService {
+    private final ContinentRepository continentRepository;
+    private final CountryRepository countryRepository;
+
+    /**
+     The maximum share of the current rows deleted by one synchronization, configured in application properties.
+     */
+    @Value("${catalog.refresh.max-delete-ratio}")
+    private double maxDeleteRatio;
+
+    /**
+     The number of rows written by a synchronization.
+     @param insertedRows the number of new continents and countries
+     @param updatedRows the number of continents and countries whose name or continent changed
+     @param deletedRows the number of continents and countries which are not in the source data anymore
+     */
+    public record SyncResult(int insertedRows, int updatedRows, int deletedRows) {
+        /**
+         @return true if any row was written
+         */
+        public boolean hasChanges() {
+            return insertedRows + updatedRows + deletedRows > 0;
+        }
+    }
+
+    /**
+     Applies the differences between the source data and the tables in a single transaction.
+     The entities are loaded once and only the changed ones are saved, updated through dirty checking or deleted;
+     Hibernate flushes the inserts and updates before the deletes, so countries moving away from a removed
+     continent are updated before the continent is deleted.
+     @param sourceContinents the continents of the source data, with their countries
+     @return the number of rows written
+     */
+    @Transactional
+    public SyncResult synchronize(List<ContinentGqlData.Continent> sourceContinents) {
+        Map<String, Continent> continents = continentRepository.findAll().stream()
+                .collect(Collectors.toMap(Continent::getCode, Function.identity()));
+        Map<String, Country> countries = countryRepository.findAll().stream()
+                .collect(Collectors.toMap(Country::getCode, Function.identity()));
+        Set<String> sourceContinentCodes = new HashSet<>();
+        Set<String> sourceCountryCodes = new HashSet<>();
+        int insertedRows = 0;
+        int updatedRows = 0;
+
+        for (ContinentGqlData.Continent sourceContinent : sourceContinents) {
+            sourceContinentCodes.add(sourceContinent.getCode());
+            Continent continent = continents.get(sourceContinent.getCode());
+            if (continent == null) {
+                continent = continentRepository.save(new Continent(sourceContinent.getCode(), sourceContinent.getName(), null));
+                insertedRows++;
+            } else if (!Objects.equals(continent.getName(), sourceContinent.getName())) {
+                continent.setName(sourceContinent.getName());
+                updatedRows++;
+            }
+
+            for (ContinentGqlData.Country sourceCountry : sourceContinent.getCountries()) {
+                sourceCountryCodes.add(sourceCountry.getCode());
+                Country country = countries.get(sourceCountry.getCode());
+                if (country == null) {
+                    countryRepository.save(new Country(sourceCountry.getCode(), sourceCountry.getName(), continent));
+                    insertedRows++;
+                } else if (!Objects.equals(country.getName(), sourceCountry.getName())
+                        || country.getContinent() == null
+                        || !Objects.equals(country.getContinent().getCode(), continent.getCode())) {
+                    country.setName(sourceCountry.getName());
+                    country.setContinent(continent);
+                    updatedRows++;
+                }
+            }
+        }
+
+        // Delete the rows which are not in the source data anymore, the countries before their continents
+        List<Country> removedCountries = countries.values().stream()
+                .filter(country -> !sourceCountryCodes.contains(country.getCode()))
+                .toList();
+        List<Continent> removedContinents = continents.values().stream()
+                .filter(continent -> !sourceContinentCodes.contains(continent.getCode()))
+                .toList();
+        int deletedRows = removedCountries.size() + removedContinents.size();
+        int currentRows = countries.size() + continents.size();
+        if (deletedRows > currentRows * maxDeleteRatio) {
+            log.warn("Skipping the deletion of " + deletedRows + " of " + currentRows
+                    + " rows missing from the source data, above the maximum delete ratio of " + maxDeleteRatio);
+            deletedRows = 0;
+        } else {
+            countryRepository.deleteAll(removedCountries);
+            continentRepository.deleteAll(removedContinents);
+        }
+
+        SyncResult result = new SyncResult(insertedRows, updatedRows, deletedRows);
+        log.info("Synchronized country data: " + result);
+        return result;
+    }
+}
@@ -1,17 +1,106 @@
 package com.example.takehome.service;
 
+import com.example.takehome.catalog.CountryCatalog;
+import com.example.takehome.dto.ContinentCountryData;
+import com.example.takehome.dto.batch.CountryBatchResponse;
+import com.example.takehome.dto.batch.CountryBatchResult;
+import com.example.takehome.exception.ApiInputDataValidationException;
 import com.example.takehome.model.Country;
 import com.example.takehome.repository.CountryRepository;
+import com.example.takehome.util.CountryCodeParser;
+import com.example.takehome.util.Util;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
 /**
  Service class for managing countries.
+ The lookups are answered from an in-memory {@link CountryCatalog} snapshot,
+ the database is only used for loading and refreshing the catalog.
+ The catalog is loaded at startup by {@link CountryCatalogLoader}; a recent binary snapshot of the catalog
+ is served until the database is read, and an older one if the database is not available,
+ see {@link CountryCatalogSnapshotService}.
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CountryService {
+    /**
+     Error message for requests in which none of the country codes is in the catalog.
+     */
+    public static final String ONLY_INVALID_COUNTRY_CODES = "The list of countries contains only invalid country codes.";
+
+    /**
+     Error result of a stream whose remaining queries are not resolved because the rate limit was reached.
+     */
+    public static final String STREAM_RATE_LIMITED = "Too many requests, the remaining queries of the stream were not resolved.";
+
+    private static final int STREAM_READ_BUFFER_SIZE = 8192;
+
     private final CountryRepository countryRepository;
+    private final CountryCatalogSnapshotService countryCatalogSnapshotService;
+    private final PipelineStageTimers pipelineStageTimers;
+
+    /**
+     The current catalog snapshot, replaced as a whole when the catalog is refreshed.
+     */
+    private volatile CountryCatalog countryCatalog;
+
+    /**
+     Whether the current catalog was read from the snapshot file instead of the database.
+     */
+    private volatile boolean servingSnapshot;
+
+    /**
+     Serves a catalog read from the snapshot file instead of the database, see {@link CountryCatalogLoader}.
+     @param catalog the catalog of the snapshot file
+     */
+    public void serveSnapshotCatalog(CountryCatalog catalog) {
+        this.countryCatalog = catalog;
+        this.servingSnapshot = true;
+    }
+
+    /**
+     @return true if the current catalog was read from the snapshot file instead of the database
+     */
+    public boolean isServingSnapshot() {
+        return servingSnapshot;
+    }
+
+    /**
+     Loads a new catalog snapshot from the database and swaps it in.
+     Requests already running keep using the previous snapshot, the cached results are evicted.
+     The catalog is read in a read-write transaction, so from the primary database even when read replicas
+     are configured: a refresh following a write must see it, whatever the replication lag.
+     @return the new catalog
+     */
+    @Transactional
+    @CacheEvict(value = "countryDataCache", allEntries = true)
+    public CountryCatalog refreshCountryCatalog() {
+        CountryCatalog catalog = CountryCatalog.of(countryRepository.findAllWithContinent());
+        this.countryCatalog = catalog;
+        this.servingSnapshot = false;
+        log.info("Loaded country catalog with " + catalog.size() + " countries");
+        countryCatalogSnapshotService.writeSnapshot(catalog);
+        return catalog;
+    }
+
+    /**
+     Returns the current catalog snapshot.
+     @return the current catalog
+     */
+    public CountryCatalog getCountryCatalog() {
+        return countryCatalog;
+    }
 
     /**
      Returns a list of {@link Country} objects whose code is present in the provided list.
@@ -19,6 +108,158 @@ public class CountryService {
      @return a list of {@link Country} objects whose code is present in the provided list
      */
     public List<Country> getCountriesByCodeIn(List<String> countryList) {
-        return countryRepository.findCountriesByCodeIn(countryList);
+        return countryCatalog.findCountriesByCodeIn(countryList);
+    }
+
+    /**
+     Returns the continents of the provided country codes, with the requested and the other countries of each continent.
+     Codes that are not in the catalog are ignored.
+     @param countryList a list of clean country codes
+     @return a list of {@link ContinentCountryData} objects, empty if none of the codes is in the catalog
+     */
+    public List<ContinentCountryData> getContinentCountries(List<String> countryList) {
+        // Resolve against a single snapshot even if the catalog is refreshed meanwhile
+        CountryCatalog catalog = countryCatalog;
+        return Util.convertToContinentCountries(catalog, catalog.toCodeSet(countryList));
+    }
+
+    /**
+     Returns the continents of the provided country code slots, with the requested and the other countries of each continent.
+     Slots that are not in the catalog are ignored.
+     The results are cached by the catalog snapshot and a copy of the code set, which should be canonical
+     (see {@link CountryCatalog#retainKnownCodes(BitSet)}), so the request resolves the snapshot once, see {@link #getCountryCatalog()},
+     and uses it for both the canonical set and the lookup.
+     The conversion run on a cache miss is timed, see {@link PipelineStageTimers#lookup}.
+     @param catalog the catalog snapshot of the request
+     @param countryCodes the slots of the requested country codes, as parsed by {@link com.example.takehome.util.CountryCodeParser}
+     @return a list of {@link ContinentCountryData} objects, empty if none of the codes is in the catalog
+     */
+    @Cacheable(value = "countryDataCache", key = "T(com.example.takehome.catalog.CountryCodeSetKey).of(#p0, #p1)")
+    public List<ContinentCountryData> getContinentCountries(CountryCatalog catalog, BitSet countryCodes) {
+        return pipelineStageTimers.conversion(() -> Util.convertToContinentCountries(catalog, countryCodes));
+    }
+
+    /**
+     Resolves a batch of queries against a single catalog snapshot, evaluating them in parallel.
+     Every query is parsed like the path of the main endpoints; an invalid query gets an error
+     in its result instead of failing the whole batch.
+     @param queries the comma separated country codes of every query
+     @return the results in the order of the queries, with the version of the catalog used
+     */
+    public CountryBatchResponse getContinentCountriesBatch(List<String> queries) {
+        CountryCatalog catalog = countryCatalog;
+        List<CountryBatchResult> results = queries.parallelStream()
+                .map(query -> resolveBatchQuery(catalog, query))
+                .toList();
+
+        return CountryBatchResponse.builder()
+                .catalogVersion(catalog.getVersion())
+                .results(results)
+                .build();
+    }
+
+    /**
+     Resolves a single query of a batch.
+     The batch and stream queries are not cached, their conversion is timed as a stage without a cache, see {@link PipelineStageTimers}.
+     @param catalog the catalog snapshot of the batch
+     @param query the comma separated country codes
+     @return the result containing either the continents or the error message
+     */
+    private CountryBatchResult resolveBatchQuery(CountryCatalog catalog, String query) {
+        CountryBatchResult.CountryBatchResultBuilder result = CountryBatchResult.builder().query(query);
+        try {
+            BitSet countryCodeSet = catalog.retainKnownCodes(CountryCodeParser.parse(Objects.requireNonNullElse(query, "")));
+            if (countryCodeSet.isEmpty()) {
+                throw new ApiInputDataValidationException(ONLY_INVALID_COUNTRY_CODES);
+            }
+            long start = System.nanoTime();
+            List<ContinentCountryData> continents = Util.convertToContinentCountries(catalog, countryCodeSet);
+            pipelineStageTimers.record(PipelineStageTimers.CONVERSION, PipelineStageTimers.PRIVATE_ENDPOINT,
+                    PipelineStageTimers.NO_CACHE, System.nanoTime() - start);
+            return result.continents(continents).build();
+        } catch (ApiInputDataValidationException e) {
+            return result.error(e.getMessage()).build();
+        }
+    }
+
+    /**
+     Resolves a stream of queries, one per line, writing one JSON result per line (NDJSON) as soon as each query is resolved.
+     The whole stream is resolved against a single catalog snapshot and only the current line is held in memory,
+     so the memory used does not depend on the size of the stream. Blank lines are skipped.
+     Every query is charged before it is resolved; once a query is refused, a last error result is written
+     and the rest of the stream is not read.
+     @param queries the reader of the queries, it is not closed
+     @param outputStream the stream to write the results to, it should be buffered and it is not flushed nor closed
+     @param maxLineLength the maximum number of characters of a line, longer lines get an error result
+     @param chargeQuery charges the rate limiter for the next query, false if the query is refused
+     @return the number of results written
+     @throws IOException if the queries can not be read or the results can not be written
+     */
+    public long streamContinentCountries(Reader queries, OutputStream outputStream, int maxLineLength,
+                                         BooleanSupplier chargeQuery) throws IOException {
+        CountryCatalog catalog = countryCatalog;
+        StringBuilder line = new StringBuilder();
+        boolean lineTooLong = false;
+        long resultCount = 0;
+
+        char[] buffer = new char[STREAM_READ_BUFFER_SIZE];
+        int read;
+        while ((read = queries.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (c == '\n') {
+                    int written = writeStreamResult(catalog, line, lineTooLong, maxLineLength, chargeQuery, outputStream);
+                    if (written < 0) {
+                        return resultCount + 1;
+                    }
+                    resultCount += written;
+                    line.setLength(0);
+                    lineTooLong = false;
+                } else if (c == '\r') {
+                    // Accept CRLF line endings
+                    continue;
+                } else if (line.length() < maxLineLength) {
+                    line.append(c);
+                } else {
+                    lineTooLong = true;
+                }
+            }
+        }
+        // The last line may not be terminated
+        int written = writeStreamResult(catalog, line, lineTooLong, maxLineLength, chargeQuery, outputStream);
+        return resultCount + Math.abs(written);
+    }
+
+    /**
+     Resolves a line of a stream of queries and writes its result followed by a new line.
+     @param catalog the catalog snapshot of the stream
+     @param line the characters of the line, without the line terminator
+     @param lineTooLong whether characters were dropped from the line because it is too long
+     @param maxLineLength the maximum number of characters of a line
+     @param chargeQuery charges the rate limiter for the query
+     @param outputStream the stream to write the result to
+     @return 1 if a result was written, 0 for a blank line, -1 if the query was refused and the stream must stop
+     */
+    private int writeStreamResult(CountryCatalog catalog, StringBuilder line, boolean lineTooLong, int maxLineLength,
+                                  BooleanSupplier chargeQuery, OutputStream outputStream) throws IOException {
+        String query = lineTooLong ? null : line.toString();
+        if (query != null && query.isBlank()) {
+            return 0;
+        }
+        int written = 1;
+        CountryBatchResult result;
+        if (!chargeQuery.getAsBoolean()) {
+            result = CountryBatchResult.builder().error(STREAM_RATE_LIMITED).build();
+            written = -1;
+        } else if (lineTooLong) {
+            result = CountryBatchResult.builder()
+                    .error("The line is longer than " + maxLineLength + " characters.")
+                    .build();
+        } else {
+            result = resolveBatchQuery(catalog, query);
+        }
+        catalog.getJsonFragments().write(result, outputStream);
+        outputStream.write('\n');
+        return written;
     }
 }
@@ -2,67 +2,184 @@ package com.example.takehome.service;
 
 import com.example.takehome.dto.graphql.ContinentGqlData;
 import com.example.takehome.dto.graphql.ContinentGqlRequestBody;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
 /**
  Service class for making GraphQL API calls to retrieve continent and country data.
+ A single pooled client is shared by all the calls and the GraphQL query is read once, when the service is created.
+ Every call is bounded by the configured timeouts, and the failed calls are retried with an exponential backoff.
  */
 @Service
 @Slf4j
 public class GraphQlService {
+  private static final int MAX_CONNECTIONS = 2;
+
   /**
    The GraphQL API URL, configured in application properties.
    */
-  @Value("${graphql.api.url}")
-  private String graphQlApiUrl;
+  private final String graphQlApiUrl;
+
+  /**
+   The body of the GraphQL requests, holding the query read from the file configured in application properties.
+   */
+  private final ContinentGqlRequestBody graphQlRequestBody;
+
+  /**
+   The maximum duration of a call, configured in application properties.
+   */
+  private final Duration requestTimeout;
+
+  /**
+   The retry policy of the calls, configured in application properties.
+   */
+  private final Retry retry;
+
+  /**
+   The connection pool of the client, disposed when the application context is closed.
+   */
+  private final ConnectionProvider connectionProvider;
+
+  private final WebClient webClient;
+
+  /**
+   Creates the service and its client.
+   @param graphQlApiUrl the GraphQL API URL
+   @param graphQlQueryFilepath the classpath location of the GraphQL query
+   @param connectTimeout the maximum duration of the connection to the API
+   @param requestTimeout the maximum duration of a call, from the request to the last byte of the response
+   @param maxRetries the number of retries of a failed call
+   @param retryBackoff the delay before the first retry, doubled for every next retry
+   */
+  public GraphQlService(@Value("${graphql.api.url}") String graphQlApiUrl,
+                        @Value("${graphql.query.filepath}") String graphQlQueryFilepath,
+                        @Value("${graphql.api.connect-timeout}") Duration connectTimeout,
+                        @Value("${graphql.api.request-timeout}") Duration requestTimeout,
+                        @Value("${graphql.api.max-retries}") int maxRetries,
+                        @Value("${graphql.api.retry-backoff}") Duration retryBackoff) {
+    this.graphQlApiUrl = graphQlApiUrl;
+    this.graphQlRequestBody = new ContinentGqlRequestBody(readGraphQlQuery(graphQlQueryFilepath));
+    this.requestTimeout = requestTimeout;
+    this.retry = Retry.backoff(maxRetries, retryBackoff)
+        .filter(GraphQlService::isTransientError)
+        .onRetryExhaustedThrow((retrySpec, retrySignal) -> retrySignal.failure());
+
+    this.connectionProvider = ConnectionProvider.builder("graphql")
+        .maxConnections(MAX_CONNECTIONS)
+        .maxIdleTime(Duration.ofMinutes(1))
+        .build();
+    HttpClient httpClient = HttpClient.create(connectionProvider)
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(connectTimeout.toMillis()))
+        .responseTimeout(requestTimeout);
+    this.webClient = WebClient.builder()
+        .clientConnector(new ReactorClientHttpConnector(httpClient))
+        .build();
+  }
 
   /**
-   The file path for the GraphQL query, configured in application properties.
+   Closes the pooled connections of the client when the application context is closed.
    */
-  @Value("${graphql.query.filepath}")
-  private String graphQlQueryFilepath;
+  @PreDestroy
+  public void dispose() {
+    connectionProvider.dispose();
+  }
 
   /**
    Retrieves a {@link ContinentGqlData} object containing data for all continents and their countries.
    @return a {@link ContinentGqlData} object containing data for all continents and their countries
-   @throws IOException if an error occurs while reading the GraphQL query file
    */
-  public ContinentGqlData getContinentsWithCountries() throws IOException {
-    final String graphQlQuery = getGraphQlSchemaFromFileName();
-    ContinentGqlRequestBody graphQLRequestBody = new ContinentGqlRequestBody(graphQlQuery);
+  public ContinentGqlData getContinentsWithCountries() {
+    return streamContinentsWithCountries()
+        .collectList()
+        .timeout(requestTimeout)
+        // The whole call is retried, so that no continent is received twice
+        .retryWhen(retry)
+        .map(continents -> new ContinentGqlData(new ContinentGqlData.ContinentData(continents)))
+        .block();
+  }
 
-    WebClient webClient = WebClient.builder().build();
+  /**
+   Streams the continents and their countries as they are decoded from the response,
+   without holding the whole response in memory. A single call is made, without retries,
+   and it fails if no continent is received during the request timeout.
+   @return the continents, in the order of the response
+   */
+  public Flux<ContinentGqlData.Continent> streamContinentsWithCountries() {
+    return Flux.defer(() -> {
+      ContinentGqlStreamDecoder decoder = new ContinentGqlStreamDecoder();
+      return webClient.post()
+          .uri(this.graphQlApiUrl)
+          .bodyValue(this.graphQlRequestBody)
+          .retrieve()
+          .bodyToFlux(DataBuffer.class)
+          .concatMapIterable(dataBuffer -> decoder.decode(toBytes(dataBuffer)))
+          .concatWith(Flux.defer(() -> Flux.fromIterable(decoder.endOfInput())));
+    }).timeout(requestTimeout);
+  }
 
-    return webClient.post()
-        .uri(this.graphQlApiUrl)
-        .bodyValue(graphQLRequestBody)
-        .retrieve()
-        .bodyToMono(ContinentGqlData.class)
-        .block();
+  /**
+   Copies the content of a buffer of the response and releases it.
+   @param dataBuffer the buffer
+   @return the bytes of the buffer
+   */
+  private static byte[] toBytes(DataBuffer dataBuffer) {
+    try {
+      byte[] bytes = new byte[dataBuffer.readableByteCount()];
+      dataBuffer.read(bytes);
+      return bytes;
+    } finally {
+      DataBufferUtils.release(dataBuffer);
+    }
+  }
+
+  /**
+   Checks if a failed call is worth retrying: connection errors, timeouts and server errors.
+   @param error the error of the call
+   @return true if the call should be retried
+   */
+  private static boolean isTransientError(Throwable error) {
+    return error instanceof WebClientRequestException
+        || error instanceof TimeoutException
+        || error instanceof WebClientResponseException responseException && responseException.getStatusCode().is5xxServerError();
   }
+
   /**
-   Reads the GraphQL query from a file and returns it as a {@link String}.
+   Reads the GraphQL query from a classpath file.
 
+   @param graphQlQueryFilepath the classpath location of the GraphQL query
    @return the GraphQL query as a {@link String}
-   @throws IOException if an error occurs while reading the GraphQL query file
    */
-  private String getGraphQlSchemaFromFileName() throws IOException {
+  private static String readGraphQlQuery(String graphQlQueryFilepath) {
     try (InputStream resourceStream = GraphQlService.class.getClassLoader()
-            .getResourceAsStream(this.graphQlQueryFilepath)) {
+            .getResourceAsStream(graphQlQueryFilepath)) {
       if (resourceStream == null) {
-        log.error("Error accessing graphql resource stream from file at path: " + this.graphQlQueryFilepath);
-        throw new RuntimeException("Error accessing graphql resource stream from file at path: " + this.graphQlQueryFilepath);
+        log.error("Error accessing graphql resource stream from file at path: " + graphQlQueryFilepath);
+        throw new IllegalStateException("Error accessing graphql resource stream from file at path: " + graphQlQueryFilepath);
       }
 
-      return new String(resourceStream.readAllBytes());
+      return new String(resourceStream.readAllBytes(), StandardCharsets.UTF_8);
     } catch (IOException e) {
-      log.error("Error reading graphql query file at path: " + this.graphQlQueryFilepath, e);
-      throw e;
+      log.error("Error reading graphql query file at path: " + graphQlQueryFilepath, e);
+      throw new UncheckedIOException(e);
     }
   }
 }
@@ -1,29 +1,55 @@
 package com.example.takehome.service;
 
+import com.example.takehome.dto.auth.AuthenticatedUser;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 /**
  This service class provides methods to generate and verify JWT tokens for authentication
  purposes using the io.jsonwebtoken library.
+ The signing key and the parser are built once, when the secret key is set, and a token is parsed and
+ verified once into a {@link VerifiedToken}. The recently verified tokens are cached by their SHA-256 digest
+ until they expire, so the following requests with the same token skip the signature verification.
+ The verifications are timed by cache hit or miss, see {@link PipelineStageTimers}.
  */
 @Service
 @Getter
 @Setter
 public class JwtTokenService {
+    /**
+     * The claim holding the id of the user.
+     */
+    public static final String USER_ID_CLAIM = "uid";
+
+    /**
+     * The claim holding the names of the authorities of the user.
+     */
+    public static final String ROLES_CLAIM = "roles";
+
     /**
      * The expiration time of the JWT token in milliseconds, obtained from the application
      * properties file.
@@ -35,9 +61,141 @@ public class JwtTokenService {
      * The secret key used for signing the JWT token, obtained from the application properties
      * file.
      */
-    @Value("${jwtToken.secret-key}")
     private String jwtTokenSecretKey;
 
+    /**
+     * The maximum number of verified tokens cached, obtained from the application properties file.
+     */
+    @Value("${jwtToken.verified-cache-size:10000}")
+    private int verifiedTokenCacheSize = 10000;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile Key signInKey;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile JwtParser jwtParser;
+
+    /**
+     * The timers of the verifications, null when the service is not a bean.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private PipelineStageTimers pipelineStageTimers;
+
+    /**
+     * The verified tokens, by the hex SHA-256 digest of the token.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * The claims of a token whose signature was verified.
+     *
+     * @param userName the subject of the token
+     * @param expiration the expiration time of the token, or {@code null} if it does not expire
+     * @param claims all the claims of the token
+     */
+    public record VerifiedToken(String userName, Date expiration, Claims claims) {
+        /**
+         * @return {@code true} if the token has expired since it was verified
+         */
+        public boolean isExpired() {
+            return expiration != null && expiration.before(new Date());
+        }
+
+        /**
+         * @return {@code true} if the token carries the user id and roles, so that the request
+         * can be authenticated without loading the user
+         */
+        public boolean hasUserClaims() {
+            return userName != null && claims.get(USER_ID_CLAIM) instanceof Number && claims.get(ROLES_CLAIM) instanceof List<?>;
+        }
+
+        /**
+         * @return the principal of the user of the token, built from its claims
+         */
+        public AuthenticatedUser toPrincipal() {
+            return new AuthenticatedUser(((Number) claims.get(USER_ID_CLAIM)).longValue(), userName);
+        }
+
+        /**
+         * @return the authorities of the user of the token, built from its roles claim
+         */
+        public List<GrantedAuthority> authorities() {
+            return ((List<?>) claims.get(ROLES_CLAIM)).stream()
+                    .<GrantedAuthority>map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                    .toList();
+        }
+    }
+
+    /**
+     * Sets the secret key used for signing the JWT token and builds the signing key and the parser.
+     * The tokens verified with the previous key are forgotten.
+     *
+     * @param jwtTokenSecretKey the base64 encoded secret key
+     */
+    @Value("${jwtToken.secret-key}")
+    public void setJwtTokenSecretKey(String jwtTokenSecretKey) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtTokenSecretKey));
+        this.jwtTokenSecretKey = jwtTokenSecretKey;
+        this.signInKey = key;
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verifiedTokens.clear();
+    }
+
+    /**
+     * Sets the timers of the verifications, the verifications are not timed without them.
+     *
+     * @param pipelineStageTimers the timers of the stages of the country lookup
+     */
+    @Autowired(required = false)
+    public void setPipelineStageTimers(PipelineStageTimers pipelineStageTimers) {
+        this.pipelineStageTimers = pipelineStageTimers;
+    }
+
+    /**
+     * Verifies the signature and the expiration of a JWT token and returns its claims.
+     * The token is parsed only if it is not in the cache of the recently verified tokens.
+     *
+     * @param jwtToken the JWT token to verify
+     * @return the claims of the token
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public VerifiedToken verifyToken(String jwtToken) {
+        long start = System.nanoTime();
+        String digest = digestOf(jwtToken);
+        VerifiedToken verifiedToken = verifiedTokens.get(digest);
+        if (verifiedToken != null && !verifiedToken.isExpired()) {
+            recordVerification(PipelineStageTimers.CACHE_HIT, start);
+            return verifiedToken;
+        }
+
+        Claims claims = extractAllClaims(jwtToken);
+        verifiedToken = new VerifiedToken(claims.getSubject(), claims.getExpiration(), claims);
+        // Tokens which never expire are not cached, since an entry is only dropped when its token expires
+        if (verifiedToken.expiration() != null) {
+            cacheVerifiedToken(digest, verifiedToken);
+        }
+        recordVerification(PipelineStageTimers.CACHE_MISS, start);
+        return verifiedToken;
+    }
+
+    /**
+     * Checks if a verified token is valid for a given user.
+     *
+     * @param verifiedToken the verified token to check
+     * @param userDetails the user details object to compare against the token
+     * @return {@code true} if the token is valid for the user and not expired, {@code false} otherwise
+     */
+    public boolean isTokenValid(VerifiedToken verifiedToken, UserDetails userDetails) {
+        return verifiedToken.userName() != null
+                && verifiedToken.userName().equals(userDetails.getUsername())
+                && !verifiedToken.isExpired();
+    }
+
     /**
      * Extracts the username from a JWT token.
      *
@@ -46,7 +204,7 @@ public class JwtTokenService {
      */
     // Extract a particular claim (called subject) from the JWT token
     public String extractUserName(String jwtToken) {
-        return extractClaim(jwtToken, Claims::getSubject);
+        return verifyToken(jwtToken).userName();
     }
 
     /**
@@ -58,8 +216,7 @@ public class JwtTokenService {
      * @return The extracted claim of the specified type.
      */
     public <T> T extractClaim(String jwtToken, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(jwtToken);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(verifyToken(jwtToken).claims());
     }
 
     /**
@@ -103,9 +260,7 @@ public class JwtTokenService {
      * @return {@code true} if the token is valid for the user, {@code false} otherwise
      */
     public boolean isTokenValid(String jwtToken, UserDetails userDetails) {
-        final String username = extractUserName(jwtToken);
-        return username.equals(userDetails.getUsername())
-                && !isTokenExpired(jwtToken);
+        return isTokenValid(verifyToken(jwtToken), userDetails);
     }
 
     /**
@@ -116,17 +271,7 @@ public class JwtTokenService {
      */
     public boolean isTokenExpired(String token) {
         // Check if the token expiration time is before current time
-        return extractExpiration(token).before(new Date());
-    }
-
-    /**
-     * Extracts the expiration time from a given JWT token.
-     *
-     * @param token the JWT token from which to extract the expiration time
-     * @return a {@code Date} object representing the expiration time of the token
-     */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verifyToken(token).isExpired();
     }
 
     /**
@@ -136,22 +281,58 @@ public class JwtTokenService {
      * @return a {@code Claims} object representing all claims from the token
      */
     private Claims extractAllClaims(String jwtToken) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+        return jwtParser
                 .parseClaimsJws(jwtToken)
                 .getBody();
     }
 
+    /**
+     * Adds a verified token to the cache. When the cache is full, the expired tokens are dropped first,
+     * and the whole cache if it is still full, so its size stays bounded.
+     *
+     * @param digest the digest of the token
+     * @param verifiedToken the verified token
+     */
+    private void cacheVerifiedToken(String digest, VerifiedToken verifiedToken) {
+        if (verifiedTokens.size() >= verifiedTokenCacheSize) {
+            verifiedTokens.values().removeIf(VerifiedToken::isExpired);
+            if (verifiedTokens.size() >= verifiedTokenCacheSize) {
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(digest, verifiedToken);
+    }
+
+    private void recordVerification(String cache, long start) {
+        if (pipelineStageTimers != null) {
+            // The tokens are only used by the private endpoints
+            pipelineStageTimers.record(PipelineStageTimers.JWT_VALIDATION, PipelineStageTimers.PRIVATE_ENDPOINT, cache,
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Computes the key of a token in the cache, so that the cache does not hold the tokens themselves.
+     *
+     * @param jwtToken the JWT token
+     * @return the hex SHA-256 digest of the token
+     */
+    private static String digestOf(String jwtToken) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(jwtToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * Retrieves the signing key used to generate JWT tokens.
      *
      * @return a {@code Key} object representing the signing key
      */
     public Key getSignInKey() {
-        // base64 decode
-        byte[] keyBytes = Decoders.BASE64.decode(jwtTokenSecretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signInKey;
     }
 }
@@ -0,0 +1,71 @@
+package com.example.takehome.service;
+
+import com.example.takehome.exception.TooManyLoginsException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ Dedicated thread pool running the logins, whose bcrypt password check is CPU bound and deliberately slow.
+ The pool has a fixed number of threads, so a burst of logins uses at most these cores and never starves
+ the request threads serving the catalog, and a bounded queue: the logins arriving when the queue is full
+ are rejected right away with a {@link TooManyLoginsException}, mapped to 429 Too Many Requests,
+ instead of piling up.
+ */
+@Slf4j
+@Component
+public class PasswordHashingExecutor {
+    private final ThreadPoolExecutor executor;
+
+    /**
+     Creates the thread pool.
+     @param threads the number of threads, 0 for half of the available processors
+     @param queueCapacity the number of logins waiting for a thread
+     */
+    public PasswordHashingExecutor(@Value("${auth.password-hashing.threads:0}") int threads,
+                                   @Value("${auth.password-hashing.queue-capacity:50}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Password hashing executor started with " + poolSize + " threads and a queue of " + queueCapacity);
+    }
+
+    /**
+     Runs a task on the pool.
+     @param task the task, typically a login
+     @param <T> the type of the result
+     @return the future result of the task
+     @throws TooManyLoginsException if all the threads are busy and the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new TooManyLoginsException(e);
+        }
+    }
+
+    /**
+     Stops the threads once the queued logins are done.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
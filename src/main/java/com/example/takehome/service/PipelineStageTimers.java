@@ -0,0 +1,127 @@
+package com.example.takehome.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ Component timing the stages of the country lookup pipeline, published as the countries.pipeline timer with a percentile
+ histogram, so the percentiles of every stage can be computed and alerted on from the Prometheus scrape endpoint.
+ The stage tag names the stage, the endpoint tag tells the public from the private endpoints, and the cache tag tells
+ whether the stage was answered from its cache: hit, miss, or none for the stages without a cache.
+ All the timers have the same tags, as Prometheus requires for the series of a metric.
+ */
+@Component
+public class PipelineStageTimers {
+    public static final String PARSE = "parse";
+    public static final String LOOKUP = "lookup";
+    public static final String CONVERSION = "conversion";
+    public static final String SERIALIZATION = "serialization";
+    public static final String JWT_VALIDATION = "jwt-validation";
+    public static final String RATE_LIMIT_WAIT = "rate-limit-wait";
+
+    public static final String PUBLIC_ENDPOINT = "public";
+    public static final String PRIVATE_ENDPOINT = "private";
+
+    /**
+     The request attribute holding the endpoint of a request, for the stages timed outside of its handler.
+     */
+    public static final String ENDPOINT_ATTRIBUTE = PipelineStageTimers.class.getName() + ".endpoint";
+
+    public static final String CACHE_HIT = "hit";
+    public static final String CACHE_MISS = "miss";
+    public static final String NO_CACHE = "none";
+
+    private static final String PRIVATE_PATH = "/api/v1/private/";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<StageKey, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     The duration of the conversion run by the current lookup, negative when the lookup was answered from the cache.
+     */
+    private final ThreadLocal<long[]> conversionNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     Creates the timers, registered on their first use.
+     @param meterRegistry the registry of the metrics
+     */
+    public PipelineStageTimers(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     Records the duration of a stage.
+     @param stage the stage
+     @param endpoint the public or private endpoint
+     @param cache hit, miss or none
+     @param nanos the duration in nanoseconds
+     */
+    public void record(String stage, String endpoint, String cache, long nanos) {
+        timers.computeIfAbsent(new StageKey(stage, endpoint, cache), this::register).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     Times a lookup of the country data cache, and the conversion it runs on a cache miss,
+     see {@link #conversion(Supplier)}.
+     @param endpoint the public or private endpoint
+     @param lookup the call of the cached method
+     @return the result of the lookup
+     */
+    public <T> T lookup(String endpoint, Supplier<T> lookup) {
+        long[] conversion = conversionNanos.get();
+        conversion[0] = -1;
+        long start = System.nanoTime();
+        T result = lookup.get();
+        long elapsed = System.nanoTime() - start;
+        if (conversion[0] < 0) {
+            record(LOOKUP, endpoint, CACHE_HIT, elapsed);
+        } else {
+            record(LOOKUP, endpoint, CACHE_MISS, elapsed);
+            record(CONVERSION, endpoint, CACHE_MISS, conversion[0]);
+        }
+        return result;
+    }
+
+    /**
+     Times the conversion run by a cached method when it is not answered from the cache.
+     The duration is recorded by the enclosing {@link #lookup(String, Supplier)}, which knows the endpoint.
+     @param conversion the body of the cached method
+     @return the result of the conversion
+     */
+    public <T> T conversion(Supplier<T> conversion) {
+        long start = System.nanoTime();
+        T result = conversion.get();
+        conversionNanos.get()[0] = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     @param path the path of the request
+     @return the private endpoint for the paths of the private API, the public endpoint otherwise
+     */
+    public static String endpointOf(String path) {
+        return path.contains(PRIVATE_PATH) ? PRIVATE_ENDPOINT : PUBLIC_ENDPOINT;
+    }
+
+    private Timer register(StageKey key) {
+        return Timer.builder("countries.pipeline")
+                .description("The latency of a stage of the country lookup pipeline")
+                .tag("stage", key.stage())
+                .tag("endpoint", key.endpoint())
+                .tag("cache", key.cache())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+
+    private record StageKey(String stage, String endpoint, String cache) {
+    }
+}
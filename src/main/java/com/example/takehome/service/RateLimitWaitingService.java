@@ -0,0 +1,195 @@
+package com.example.takehome.service;
+
+import com.example.takehome.ratelimit.FairWaitingQueue;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Service class letting the requests of the private endpoints over the rate limit of their user wait for a permit,
+ up to countries.rate-limit.waiting.max-wait, instead of being rejected at once. It is enabled by the
+ countries.rate-limit.waiting.enabled application property.
+ The waiting requests hold no thread: they are queued in a {@link FairWaitingQueue}, bounded in total and per user,
+ and a single thread grants them the permits as they are refilled, one request per user at a time.
+ The requests which would wait longer than the maximum wait, or find the queue full, are rejected at once.
+ The requests whose client went away are cancelled and never take a permit, and the permits are only acquired
+ for the users whose bucket is refilled, so the retries of the drain are not counted as rejections.
+ When the limits are shared by the nodes, acquiring a permit may call the database, so the permits are acquired on
+ a small pool of leasing threads instead of the granting thread, at most one at a time per user: a slow lease delays
+ its own user only, and the users with a lease in flight are skipped by the next runs.
+ The wait of the requests which got a permit is timed, see {@link PipelineStageTimers}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "countries.rate-limit.waiting.enabled", havingValue = "true")
+public class RateLimitWaitingService {
+    private final ClientRateLimitService clientRateLimitService;
+    private final PipelineStageTimers pipelineStageTimers;
+    private final FairWaitingQueue waitingQueue;
+    private final Duration maxWait;
+    private final ScheduledExecutorService drainExecutor;
+    private final ExecutorService leaseExecutor;
+    private final Set<String> leasingUsers = ConcurrentHashMap.newKeySet();
+
+    /**
+     Creates the waiting queue and starts granting the permits.
+     @param clientRateLimitService the per client rate limiters
+     @param meterRegistry the registry of the metrics
+     @param pipelineStageTimers the timers of the stages of the country lookup
+     @param maxWait the maximum time a request waits for a permit
+     @param maxWaiting the maximum number of waiting requests
+     @param maxWaitingPerClient the maximum number of waiting requests of a user
+     @param drainInterval the interval between two grants of the permits
+     @param leaseThreads the number of threads acquiring the permits when the limits are shared by the nodes
+     */
+    public RateLimitWaitingService(ClientRateLimitService clientRateLimitService,
+                                   MeterRegistry meterRegistry,
+                                   PipelineStageTimers pipelineStageTimers,
+                                   @Value("${countries.rate-limit.waiting.max-wait:2s}") Duration maxWait,
+                                   @Value("${countries.rate-limit.waiting.max-waiting:1000}") int maxWaiting,
+                                   @Value("${countries.rate-limit.waiting.max-waiting-per-client:20}") int maxWaitingPerClient,
+                                   @Value("${countries.rate-limit.waiting.drain-interval:10ms}") Duration drainInterval,
+                                   @Value("${countries.rate-limit.waiting.lease-threads:4}") int leaseThreads) {
+        this.clientRateLimitService = clientRateLimitService;
+        this.pipelineStageTimers = pipelineStageTimers;
+        this.waitingQueue = new FairWaitingQueue(maxWaiting, maxWaitingPerClient);
+        this.maxWait = maxWait;
+
+        String name = ClientRateLimitService.AUTH_RATE_LIMITER;
+        Gauge.builder("ratelimiter.clients.waiting", waitingQueue, FairWaitingQueue::getWaiting)
+                .description("The number of requests waiting for a permit of the per client rate limiter")
+                .tag("name", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("ratelimiter.clients.waited", waitingQueue, FairWaitingQueue::getGrantedCalls)
+                .description("The number of waiting requests which got a permit")
+                .tag("name", name).tag("kind", "granted")
+                .register(meterRegistry);
+        FunctionCounter.builder("ratelimiter.clients.waited", waitingQueue, FairWaitingQueue::getExpiredCalls)
+                .description("The number of waiting requests rejected at the end of the maximum wait")
+                .tag("name", name).tag("kind", "expired")
+                .register(meterRegistry);
+        FunctionCounter.builder("ratelimiter.clients.waited", waitingQueue, FairWaitingQueue::getRefusedCalls)
+                .description("The number of requests rejected because the waiting queue was full")
+                .tag("name", name).tag("kind", "refused")
+                .register(meterRegistry);
+        FunctionCounter.builder("ratelimiter.clients.waited", waitingQueue, FairWaitingQueue::getCancelledCalls)
+                .description("The number of waiting requests whose client went away")
+                .tag("name", name).tag("kind", "cancelled")
+                .register(meterRegistry);
+
+        this.drainExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-waiting");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.leaseExecutor = clientRateLimitService.isClusterEnabled()
+                ? Executors.newFixedThreadPool(leaseThreads, runnable -> {
+                    Thread thread = new Thread(runnable, "rate-limit-leasing");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+        long interval = drainInterval.toNanos();
+        drainExecutor.scheduleWithFixedDelay(this::grantPermits, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     Queues a request of the private endpoints rejected by the rate limiter of its user.
+     The callbacks run on the thread granting the permits, they must not block.
+     @param userName the user of the request
+     @param onGranted run when the request got its permit
+     @param onExpired run when the request is rejected at the end of the maximum wait
+     @return the waiting request, to cancel when its client goes away, or null if it must be rejected at once
+     */
+    public FairWaitingQueue.WaitingCall await(String userName, Runnable onGranted, Runnable onExpired) {
+        // The next permit of the user comes after the maximum wait, waiting for it is useless
+        if (clientRateLimitService.retryAfter(ClientRateLimitService.AUTH_RATE_LIMITER, userName).compareTo(maxWait) > 0) {
+            return null;
+        }
+        long start = System.nanoTime();
+        return waitingQueue.offer(userName, maxWait, () -> {
+            pipelineStageTimers.record(PipelineStageTimers.RATE_LIMIT_WAIT, PipelineStageTimers.PRIVATE_ENDPOINT,
+                    PipelineStageTimers.NO_CACHE, System.nanoTime() - start);
+            onGranted.run();
+        }, onExpired);
+    }
+
+    /**
+     @return the maximum time a request waits for a permit
+     */
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     Rejects the waiting requests and stops granting the permits when the application stops.
+     */
+    @PreDestroy
+    public void shutdown() {
+        drainExecutor.shutdownNow();
+        if (leaseExecutor != null) {
+            leaseExecutor.shutdownNow();
+        }
+        waitingQueue.expireAll();
+    }
+
+    private void grantPermits() {
+        try {
+            // The users without a refilled permit are skipped, not rejected again on every run
+            waitingQueue.drain(userName -> clientRateLimitService.hasPermission(ClientRateLimitService.AUTH_RATE_LIMITER, userName)
+                            && (leaseExecutor == null ? tryAcquirePermission(userName) : leasePermission(userName)),
+                    this::refundPermission);
+        } catch (RuntimeException e) {
+            // Never cancel the scheduled task, the waiting requests are expired on the next run
+            log.error("Error granting the permits of the waiting requests", e);
+        }
+    }
+
+    /**
+     Acquires a permit for a waiting request of a user on a leasing thread, and grants it when acquired.
+     @param userName the user of the waiting request
+     @return always false, the request is granted by the leasing thread
+     */
+    private boolean leasePermission(String userName) {
+        // A user with a lease in flight is skipped, its permit is on the way
+        if (leasingUsers.add(userName)) {
+            try {
+                leaseExecutor.execute(() -> {
+                    try {
+                        if (tryAcquirePermission(userName) && !waitingQueue.grant(userName)) {
+                            refundPermission(userName);
+                        }
+                    } finally {
+                        leasingUsers.remove(userName);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The application stops
+                leasingUsers.remove(userName);
+            }
+        }
+        return false;
+    }
+
+    private boolean tryAcquirePermission(String userName) {
+        return clientRateLimitService.tryAcquirePermission(ClientRateLimitService.AUTH_RATE_LIMITER, userName, 1);
+    }
+
+    private void refundPermission(String userName) {
+        clientRateLimitService.refundPermission(ClientRateLimitService.AUTH_RATE_LIMITER, userName, 1);
+    }
+}
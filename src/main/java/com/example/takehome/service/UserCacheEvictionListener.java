@@ -0,0 +1,42 @@
+package com.example.takehome.service;
+
+import com.example.takehome.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ JPA entity listener clearing the cached users of {@link CachedUserDetailsService} when a user is created, changed or deleted.
+ The cache is cleared after the commit of the transaction, so that no concurrent request caches the previous data again.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCacheEvictionListener {
+    // Resolved lazily: the listener is created with the entity manager factory, before the repositories
+    private final ObjectProvider<CachedUserDetailsService> cachedUserDetailsService;
+
+    /**
+     Clears the cached users once the change of the user is committed.
+     @param user the changed user
+     */
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onUserChange(User user) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cachedUserDetailsService.getObject().evictAll();
+                }
+            });
+        } else {
+            cachedUserDetailsService.getObject().evictAll();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.takehome.service;
+
+import com.example.takehome.model.User;
+import com.example.takehome.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Service;
+
+/**
+ Service class storing the new hash of a password after a successful login.
+ The authentication provider calls it when the stored hash is weaker than the current bcrypt strength,
+ so the hashes follow the calibrated strength without resetting the passwords.
+ The cached users are cleared by {@link UserCacheEvictionListener} when the user is saved.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserPasswordUpgradeService implements UserDetailsPasswordService {
+    private final UserRepository userRepository;
+
+    /**
+     Replaces the password hash of the user.
+     @param userDetails the user loaded for the login
+     @param newPassword the new password hash
+     @return the saved user
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = (User) userDetails;
+        user.setPassword(newPassword);
+        return userRepository.save(user);
+    }
+}
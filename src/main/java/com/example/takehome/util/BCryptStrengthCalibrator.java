@@ -0,0 +1,61 @@
+package com.example.takehome.util;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Picks the bcrypt strength (log2 of the number of rounds) of the password encoder for the hardware the application runs on.
+ * The time of a password check at the minimum strength is measured once at startup, and the strength is raised while
+ * the check stays within the target duration, every additional round doubling the time of a check.
+ */
+public final class BCryptStrengthCalibrator {
+    private static final String SAMPLE_PASSWORD = "bcrypt-calibration-password";
+    private static final int SAMPLES = 3;
+
+    private BCryptStrengthCalibrator() {
+    }
+
+    /**
+     * Measures the password check time and computes the strength reaching the target duration.
+     *
+     * @param targetDuration the maximum duration of a password check
+     * @param minStrength the lowest strength, used even if a check takes longer than the target
+     * @param maxStrength the highest strength, used even if a check takes less than the target
+     * @return the strength, between the minimum and the maximum
+     */
+    public static int calibrateStrength(Duration targetDuration, int minStrength, int maxStrength) {
+        if (minStrength >= maxStrength) {
+            return minStrength;
+        }
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+        String hash = encoder.encode(SAMPLE_PASSWORD);
+        // The fastest sample is the least disturbed by the JIT warm-up and the other startup work
+        long fastestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.matches(SAMPLE_PASSWORD, hash);
+            fastestNanos = Math.min(fastestNanos, System.nanoTime() - start);
+        }
+        return strengthFor(fastestNanos, targetDuration.toNanos(), minStrength, maxStrength);
+    }
+
+    /**
+     * Computes the highest strength whose check time stays within the target.
+     *
+     * @param nanosAtMinStrength the measured check time at the minimum strength
+     * @param targetNanos the maximum check time
+     * @param minStrength the lowest strength
+     * @param maxStrength the highest strength
+     * @return the strength, between the minimum and the maximum
+     */
+    static int strengthFor(long nanosAtMinStrength, long targetNanos, int minStrength, int maxStrength) {
+        int strength = minStrength;
+        long nanos = Math.max(1, nanosAtMinStrength);
+        while (strength < maxStrength && nanos <= targetNanos / 2) {
+            nanos *= 2;
+            strength++;
+        }
+        return strength;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.takehome.util;
+
+import com.example.takehome.catalog.CountryCodeSlots;
+import com.example.takehome.exception.ApiInputDataValidationException;
+
+import java.util.BitSet;
+
+/**
+ * Single pass parser for the comma separated country codes of the main api endpoints.
+ * It accepts the same input as {@link Util#processCountries(java.util.List)}: white characters are ignored,
+ * codes are case-insensitive and duplicates are removed. The codes are written directly to a set of
+ * {@link CountryCodeSlots} slots, no intermediate strings or lists are created.
+ */
+public final class CountryCodeParser {
+    private CountryCodeParser() {
+    }
+
+    /**
+     * Parses the raw country codes into a set of slots.
+     * Two-character codes that are not made of letters can not be in the catalog and are ignored,
+     * the same way unknown codes are.
+     *
+     * @param countryCodes the raw comma separated country codes, e.g. {@code "IT , ca ,uS"}
+     * @return the set of slots of the parsed codes
+     * @throws ApiInputDataValidationException for the first code that is not 2 characters long
+     */
+    public static BitSet parse(CharSequence countryCodes) {
+        BitSet codeSet = new BitSet(CountryCodeSlots.SLOT_COUNT);
+        int length = countryCodes.length();
+        int codeStart = 0;
+        int codeLength = 0;
+        char first = 0;
+        char second = 0;
+
+        // The end of the input terminates the last code like a comma does
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? countryCodes.charAt(i) : ',';
+            if (c == ',') {
+                if (codeLength != 2) {
+                    throw invalidCode(countryCodes, codeStart, i);
+                }
+                int slot = CountryCodeSlots.slotOf(first, second);
+                if (slot != CountryCodeSlots.NO_SLOT) {
+                    codeSet.set(slot);
+                }
+                codeStart = i + 1;
+                codeLength = 0;
+            } else if (!isWhiteCharacter(c)) {
+                if (codeLength == 0) {
+                    first = c;
+                } else if (codeLength == 1) {
+                    second = c;
+                }
+                codeLength++;
+            }
+        }
+        return codeSet;
+    }
+
+    /**
+     * Matches the same characters as the {@code \s} regular expression class.
+     */
+    private static boolean isWhiteCharacter(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Creates the validation exception for an invalid code, the only place where the input is copied.
+     */
+    private static ApiInputDataValidationException invalidCode(CharSequence countryCodes, int start, int end) {
+        return new ApiInputDataValidationException("Country code must be 2 characters long, found '"
+                + countryCodes.subSequence(start, end).toString().strip() + "'");
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.takehome.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sampling of frequent events, such as rejected requests, so that at most one of them is logged per interval.
+ * The logged event carries the number of events since the previous logged one, so nothing is lost from the logs but the details.
+ */
+public final class SampledLog {
+    private final long intervalNanos;
+    private final AtomicLong nextLogNanos = new AtomicLong(System.nanoTime());
+    private final LongAdder events = new LongAdder();
+
+    /**
+     * @param interval the minimum time between two logged events
+     */
+    public SampledLog(Duration interval) {
+        this.intervalNanos = interval.toNanos();
+    }
+
+    /**
+     * Counts an event and tells whether it is logged.
+     *
+     * @return the number of events since the previous logged one, this one included, if this one is logged, otherwise 0
+     */
+    public long sample() {
+        events.increment();
+        long now = System.nanoTime();
+        long nextLog = nextLogNanos.get();
+        if (now - nextLog < 0 || !nextLogNanos.compareAndSet(nextLog, now + intervalNanos)) {
+            return 0;
+        }
+        return events.sumThenReset();
+    }
+}
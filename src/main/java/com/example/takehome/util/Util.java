@@ -1,10 +1,17 @@
 package com.example.takehome.util;
 
+import com.example.takehome.catalog.ContinentRoster;
+import com.example.takehome.catalog.CountryCatalog;
+import com.example.takehome.catalog.CountryCodeSlots;
 import com.example.takehome.dto.ContinentCountryData;
 import com.example.takehome.exception.ApiInputDataValidationException;
+import com.example.takehome.model.Continent;
 import com.example.takehome.model.Country;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 /**
@@ -22,40 +29,48 @@ public class Util {
      * @return The list of processed countries.
      */
     public static List<ContinentCountryData> convertToContinentCountries(List<Country> countryList) {
-        Map<String, ContinentCountryData> continentMap = new HashMap<>();
+        // Index the continents of the requested countries, their rosters become the "other countries"
+        Map<String, Continent> continents = new LinkedHashMap<>();
+        countryList.forEach(country -> continents.putIfAbsent(country.getContinent().getCode(), country.getContinent()));
 
-        countryList.forEach(country -> {
-            String continentCode = country.getContinent().getCode();
-            String continentName = country.getContinent().getName();
-
-            if (continentMap.get(continentCode) == null) {
-                // New continent found
-                ContinentCountryData continentCountryData = new ContinentCountryData();
-                continentCountryData.setName(continentName);
-                continentCountryData.getCountries().add(country.getCode());
-                continentCountryData.getOtherCountries().addAll(
-                        country.getContinent().getCountries().stream()
-                                .map(Country::getCode)
-                                .filter(code -> !code.equals(country.getCode()))
-                                .toList());
-
-                continentMap.put(continentCode, continentCountryData);
-            } else {
-                // Continent already exist in the map; update the currencies with this currency
-                ContinentCountryData continentCountryData = continentMap.get(continentCode);
+        CountryCatalog catalog = CountryCatalog.ofContinents(continents.values());
+        return convertToContinentCountries(catalog,
+                catalog.toCodeSet(countryList.stream().map(Country::getCode).toList()));
+    }
 
-                // Assume input currencies are unique in the list
-                continentCountryData.getCountries().add(country.getCode());
-                var updatedOtherCurrencies = continentCountryData.getOtherCountries()
-                        .stream()
-                        .filter(otherCurrencyCode -> !otherCurrencyCode.equals(country.getCode()))
-                        .toList();
+    /**
+     * This method is used to convert a set of country code slots to the desired result structure
+     * using the precomputed continent rosters of the catalog.
+     * For every continent the requested countries are the roster AND the requested codes,
+     * and the other countries are the roster AND NOT the requested codes.
+     * Continents are returned in catalog order and the countries in alphabetical order.
+     * The returned lists are unmodifiable since the result is shared through the countryDataCache.
+     *
+     * @param catalog The catalog to resolve the codes against.
+     * @param countryCodes The slots of the requested country codes, see {@link CountryCodeSlots}.
+     * @return The list of continents containing at least one of the requested countries.
+     */
+    public static List<ContinentCountryData> convertToContinentCountries(CountryCatalog catalog, BitSet countryCodes) {
+        List<ContinentCountryData> continentCountries = new ArrayList<>();
 
-                continentCountryData.setOtherCountries(updatedOtherCurrencies);
+        for (ContinentRoster roster : catalog.getContinentRosters()) {
+            if (!roster.countries().intersects(countryCodes)) {
+                continue;
             }
-        });
+            // The roster is shared by all requests, only combine copies of it
+            BitSet countries = (BitSet) roster.countries().clone();
+            countries.and(countryCodes);
+            BitSet otherCountries = (BitSet) roster.countries().clone();
+            otherCountries.andNot(countryCodes);
+
+            ContinentCountryData continentCountryData = new ContinentCountryData();
+            continentCountryData.setName(roster.name());
+            continentCountryData.setCountries(Collections.unmodifiableList(CountryCodeSlots.toCodes(countries)));
+            continentCountryData.setOtherCountries(Collections.unmodifiableList(CountryCodeSlots.toCodes(otherCountries)));
+            continentCountries.add(continentCountryData);
+        }
 
-        return continentMap.values().stream().toList();
+        return Collections.unmodifiableList(continentCountries);
     }
 
     /**
@@ -0,0 +1,99 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.zip.CRC32;
+
+/**
+ * Repeatable Flyway migration seeding the continent and country data from the CSV files bundled in {@code db/data}.
+ * The files are streamed to temporary tables with the PostgreSQL {@code COPY} command and only the rows whose code
+ * is missing from the {@code continent} and {@code country} tables are inserted, so the load takes a few statements
+ * whatever the number of rows, and running it again on the same data writes nothing.
+ * <p>
+ * The files are only a seed: the existing rows are never updated nor deleted, since the scheduled refresh from the
+ * GraphQL API (see {@code CountryDataSyncService}) is the source of truth of a running database.
+ * Flyway runs the migration again whenever the checksum of the files changes, so new codes of a data version
+ * only need new CSV files, see the {@code generateCatalogCsvData} generator.
+ */
+public class R__Load_Catalog_Data extends BaseJavaMigration {
+    static final String CONTINENTS_CSV = "db/data/continents.csv";
+    static final String COUNTRIES_CSV = "db/data/countries.csv";
+
+    @Override
+    public Integer getChecksum() {
+        CRC32 checksum = new CRC32();
+        checksum.update(readResource(CONTINENTS_CSV));
+        checksum.update(readResource(COUNTRIES_CSV));
+        return (int) checksum.getValue();
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+
+        try (Statement statement = connection.createStatement()) {
+            // Dropped with the transaction of the migration
+            statement.execute("create temp table continent_load (like continent) on commit drop");
+            statement.execute("create temp table country_load (like country) on commit drop");
+        }
+        copy(copyManager, "continent_load(code, name)", CONTINENTS_CSV);
+        copy(copyManager, "country_load(code, name, continent_code)", COUNTRIES_CSV);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("""
+                    insert into continent(code, name)
+                    select code, name from continent_load
+                    on conflict (code) do nothing""");
+            statement.executeUpdate("""
+                    insert into country(code, name, continent_code)
+                    select code, name, continent_code from country_load
+                    on conflict (code) do nothing""");
+        }
+    }
+
+    /**
+     * Streams a bundled CSV file to a table.
+     *
+     * @param copyManager the COPY API of the connection
+     * @param table the table and its columns, in the order of the file
+     * @param resource the classpath location of the file, with a header line
+     * @throws IllegalStateException if the file has no rows, to report a broken file
+     */
+    private static void copy(CopyManager copyManager, String table, String resource) throws SQLException, IOException {
+        try (Reader reader = new InputStreamReader(openResource(resource), StandardCharsets.UTF_8)) {
+            long rows = copyManager.copyIn("copy " + table + " from stdin with (format csv, header true)", reader);
+            if (rows == 0) {
+                throw new IllegalStateException("The catalog data file has no rows: " + resource);
+            }
+        }
+    }
+
+    private static byte[] readResource(String resource) {
+        try (InputStream inputStream = openResource(resource)) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static InputStream openResource(String resource) {
+        InputStream inputStream = R__Load_Catalog_Data.class.getClassLoader().getResourceAsStream(resource);
+        if (inputStream == null) {
+            throw new IllegalStateException("The catalog data file is missing: " + resource);
+        }
+        return inputStream;
+    }
+}
@@ -0,0 +1,3 @@
+-- The users are looked up by email for every login
+ALTER TABLE api_user
+    ADD CONSTRAINT api_user_email_idx UNIQUE (email);
@@ -0,0 +1,41 @@
+-- Shared permits of the rate limiters of all the application nodes, see PostgresPermitLeaseStore.
+-- A bucket is full again at its theoretical arrival time, in microseconds since the epoch on the database clock.
+CREATE TABLE rate_limit_bucket
+(
+    bucket_key          VARCHAR(200) NOT NULL,
+    theoretical_arrival BIGINT       NOT NULL,
+    CONSTRAINT pk_rate_limit_bucket PRIMARY KEY (bucket_key)
+);
+
+-- Gives back p_released unused permits to a bucket refilled continuously with p_limit_for_period permits
+-- per p_period_micros, takes up to p_requested permits from it, and returns the number of permits granted.
+CREATE OR REPLACE FUNCTION lease_rate_limit_permits(p_bucket_key VARCHAR,
+                                                    p_released INTEGER,
+                                                    p_requested INTEGER,
+                                                    p_limit_for_period INTEGER,
+                                                    p_period_micros BIGINT)
+    RETURNS INTEGER
+    LANGUAGE plpgsql
+AS
+$$
+DECLARE
+    v_now      BIGINT := (extract(epoch FROM clock_timestamp()) * 1000000)::BIGINT;
+    v_interval BIGINT := p_period_micros / p_limit_for_period;
+    v_arrival  BIGINT;
+    v_granted  INTEGER;
+BEGIN
+    -- Creates or locks the row of the bucket, a new bucket is full; a bucket never holds more than its limit
+    INSERT INTO rate_limit_bucket AS b (bucket_key, theoretical_arrival)
+    VALUES (p_bucket_key, v_now)
+    ON CONFLICT (bucket_key) DO UPDATE SET theoretical_arrival = b.theoretical_arrival
+    RETURNING greatest(b.theoretical_arrival - p_released * v_interval, v_now) INTO v_arrival;
+
+    v_granted := greatest(0, least(p_requested, (v_now + p_period_micros - v_arrival) / v_interval));
+    IF v_granted > 0 OR p_released > 0 THEN
+        UPDATE rate_limit_bucket
+        SET theoretical_arrival = v_arrival + v_granted * v_interval
+        WHERE bucket_key = p_bucket_key;
+    END IF;
+    RETURN v_granted;
+END;
+$$;
@@ -0,0 +1,66 @@
+package com.example.takehome.cache;
+
+import com.example.takehome.catalog.CountryCodeSetKey;
+import com.example.takehome.dto.ContinentCountryData;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * This class is used to test the serializers of the countryDataCache off-heap tier.
+ */
+class ContinentCountryDataListSerializerTest {
+    private final ContinentCountryDataListSerializer valueSerializer =
+            new ContinentCountryDataListSerializer(getClass().getClassLoader());
+    private final CountryCodeSetSerializer keySerializer =
+            new CountryCodeSetSerializer(getClass().getClassLoader());
+
+    /**
+     * This test method is used to test that a cached result is read back unchanged.
+     */
+    @Test
+    void valueShouldRoundTrip() {
+        ContinentCountryData europe = new ContinentCountryData();
+        europe.setName("Europe");
+        europe.setCountries(List.of("IT", "RO"));
+        europe.setOtherCountries(List.of("AD", "FR"));
+        ContinentCountryData southAmerica = new ContinentCountryData();
+        southAmerica.setName("South America");
+        southAmerica.setCountries(List.of("BR"));
+
+        ByteBuffer binary = valueSerializer.serialize(List.of(europe, southAmerica));
+        List<ContinentCountryData> result = valueSerializer.read(binary.duplicate());
+
+        assertEquals(2, result.size());
+        assertEquals("Europe", result.get(0).getName());
+        assertEquals(List.of("IT", "RO"), result.get(0).getCountries());
+        assertEquals(List.of("AD", "FR"), result.get(0).getOtherCountries());
+        assertEquals("South America", result.get(1).getName());
+        assertEquals(List.of("BR"), result.get(1).getCountries());
+        assertTrue(result.get(1).getOtherCountries().isEmpty());
+        assertTrue(valueSerializer.equals(List.of(europe, southAmerica), binary.duplicate()));
+    }
+
+    /**
+     * This test method is used to test that a cache key is read back unchanged.
+     */
+    @Test
+    void keyShouldRoundTrip() {
+        BitSet codeSet = new BitSet();
+        codeSet.set(52);
+        codeSet.set(675);
+        CountryCodeSetKey key = CountryCodeSetKey.of(7, codeSet.toLongArray());
+
+        ByteBuffer binary = keySerializer.serialize(key);
+        CountryCodeSetKey result = keySerializer.read(binary.duplicate());
+
+        assertEquals(key, result);
+        assertEquals(7, result.getCatalogSnapshot());
+        assertEquals(codeSet, result.toCodeSet());
+        assertTrue(keySerializer.equals(key, binary.duplicate()));
+        assertFalse(keySerializer.equals(CountryCodeSetKey.of(8, codeSet.toLongArray()), binary.duplicate()));
+    }
+}
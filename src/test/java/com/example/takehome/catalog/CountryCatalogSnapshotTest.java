@@ -0,0 +1,77 @@
+package com.example.takehome.catalog;
+
+import com.example.takehome.model.Continent;
+import com.example.takehome.model.Country;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * This class is used to test the binary snapshot of the country catalog.
+ */
+class CountryCatalogSnapshotTest {
+    private final Continent northAmerica = new Continent("NA", "North America", null);
+    private final Continent europe = new Continent("EU", "Europe", null);
+
+    private final CountryCatalog catalog = CountryCatalog.of(List.of(
+            new Country("US", "United States", northAmerica),
+            new Country("CA", "Canada", northAmerica),
+            new Country("AX", "\u00c5land", europe),
+            new Country("FR", "France", europe)
+    ));
+
+    @TempDir
+    Path directory;
+
+    /**
+     * This test method is used to test that a snapshot is read back with the same data and catalog version.
+     */
+    @Test
+    void readShouldReturnWrittenCatalog() throws IOException {
+        Path path = directory.resolve("catalog.snapshot");
+        Instant createdAt = Instant.parse("2023-03-01T10:15:30Z");
+
+        new CountryCatalogSnapshot(catalog, createdAt).write(path);
+        CountryCatalogSnapshot snapshot = CountryCatalogSnapshot.read(path);
+
+        assertEquals(createdAt, snapshot.createdAt());
+        assertEquals(catalog.getVersion(), snapshot.catalog().getVersion());
+        assertEquals(4, snapshot.catalog().size());
+        assertEquals("\u00c5land", snapshot.catalog().findCountry("AX").getName());
+        assertEquals("Europe", snapshot.catalog().findCountry("AX").getContinent().getName());
+    }
+
+    /**
+     * This test method is used to test that a corrupted or truncated snapshot is rejected.
+     */
+    @Test
+    void readShouldRejectInvalidSnapshot() throws IOException {
+        Path path = directory.resolve("catalog.snapshot");
+        new CountryCatalogSnapshot(catalog, Instant.now()).write(path);
+        byte[] bytes = Files.readAllBytes(path);
+
+        byte[] corrupted = bytes.clone();
+        corrupted[corrupted.length - 1] ^= 1;
+        Files.write(path, corrupted);
+        assertThrows(IOException.class, () -> CountryCatalogSnapshot.read(path));
+
+        // The last country name is not covered by the catalog version, only by the checksum
+        corrupted = bytes.clone();
+        corrupted[corrupted.length - Integer.BYTES - 1] ^= 1;
+        Files.write(path, corrupted);
+        assertThrows(IOException.class, () -> CountryCatalogSnapshot.read(path));
+
+        Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> CountryCatalogSnapshot.read(path));
+
+        Files.write(path, new byte[0]);
+        assertThrows(IOException.class, () -> CountryCatalogSnapshot.read(path));
+    }
+}
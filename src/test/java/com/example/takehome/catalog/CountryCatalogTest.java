@@ -0,0 +1,109 @@
+package com.example.takehome.catalog;
+
+import com.example.takehome.model.Continent;
+import com.example.takehome.model.Country;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * This class is used to test the country catalog.
+ */
+class CountryCatalogTest {
+    private final Continent northAmerica = new Continent("NA", "North America", null);
+    private final Continent europe = new Continent("EU", "Europe", null);
+
+    private final CountryCatalog catalog = CountryCatalog.of(List.of(
+            new Country("US", "United States", northAmerica),
+            new Country("CA", "Canada", northAmerica),
+            new Country("IT", "Italy", europe),
+            new Country("FR", "France", europe)
+    ));
+
+    /**
+     * This test method is used to test that the catalog builds the continent rosters from the loaded countries.
+     * It should not touch the lazy countries collection of the source continents.
+     */
+    @Test
+    void ofShouldBuildSortedContinentRosters() {
+        assertEquals(4, catalog.size());
+        assertEquals(2, catalog.getContinents().size());
+
+        Continent first = catalog.getContinents().get(0);
+        assertEquals("EU", first.getCode());
+        assertEquals(List.of("FR", "IT"), first.getCountries().stream().map(Country::getCode).toList());
+        assertNull(europe.getCountries());
+    }
+
+    /**
+     * This test method is used to test the lookup of countries by code.
+     * It should ignore unknown codes and duplicates.
+     */
+    @Test
+    void findCountriesByCodeInShouldIgnoreUnknownCodes() {
+        List<Country> countries = catalog.findCountriesByCodeIn(List.of("CA", "ZZ", "IT", "CA"));
+
+        assertEquals(List.of("CA", "IT"), countries.stream().map(Country::getCode).toList());
+        assertEquals("North America", countries.get(0).getContinent().getName());
+        assertEquals(2, countries.get(0).getContinent().getCountries().size());
+    }
+
+    /**
+     * This test method is used to test that the catalog can not be modified by its users.
+     */
+    @Test
+    void rostersShouldBeUnmodifiable() {
+        Continent continent = catalog.getContinents().get(0);
+        assertThrows(UnsupportedOperationException.class, () -> continent.getCountries().clear());
+        assertThrows(UnsupportedOperationException.class, () -> catalog.getContinents().clear());
+    }
+
+    /**
+     * This test method is used to test the entity tags of the responses.
+     * They should only depend on the data the responses are made of and on the requested codes.
+     */
+    @Test
+    void eTagShouldDependOnDataAndCodes() {
+        CountryCatalog sameCatalog = CountryCatalog.of(List.of(
+                new Country("IT", "Italy", europe),
+                new Country("FR", "France", europe),
+                new Country("CA", "Canada", northAmerica),
+                new Country("US", "United States", northAmerica)
+        ));
+        CountryCatalog renamedCatalog = CountryCatalog.of(List.of(
+                new Country("US", "United States", new Continent("NA", "North-America", null)),
+                new Country("CA", "Canada", new Continent("NA", "North-America", null)),
+                new Country("IT", "Italy", europe),
+                new Country("FR", "France", europe)
+        ));
+
+        assertEquals(catalog.getVersion(), sameCatalog.getVersion());
+        assertNotEquals(catalog.getVersion(), renamedCatalog.getVersion());
+        assertEquals(32, catalog.getVersion().length());
+
+        String eTag = catalog.eTagOf(catalog.toCodeSet(List.of("US", "IT")));
+        assertEquals(eTag, sameCatalog.eTagOf(sameCatalog.toCodeSet(List.of("it", "US", "US"))));
+        assertNotEquals(eTag, catalog.eTagOf(catalog.toCodeSet(List.of("US"))));
+        assertNotEquals(eTag, renamedCatalog.eTagOf(renamedCatalog.toCodeSet(List.of("US", "IT"))));
+        assertTrue(eTag.matches("\"[0-9a-f]{32}\""));
+    }
+
+    /**
+     * This test method is used to test that the data which is not part of the responses, like the names
+     * of the countries, does not change the version nor the entity tags.
+     */
+    @Test
+    void eTagShouldIgnoreCountryNames() {
+        CountryCatalog renamedCatalog = CountryCatalog.of(List.of(
+                new Country("US", "United States of America", northAmerica),
+                new Country("CA", "Canada", northAmerica),
+                new Country("IT", "Italy", europe),
+                new Country("FR", "France", europe)
+        ));
+
+        assertEquals(catalog.getVersion(), renamedCatalog.getVersion());
+        assertEquals(catalog.eTagOf(catalog.toCodeSet(List.of("US"))),
+                renamedCatalog.eTagOf(renamedCatalog.toCodeSet(List.of("US"))));
+    }
+}
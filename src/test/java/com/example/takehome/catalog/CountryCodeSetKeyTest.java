@@ -0,0 +1,46 @@
+package com.example.takehome.catalog;
+
+import com.example.takehome.model.Continent;
+import com.example.takehome.model.Country;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class is used to test the cache key of the country data.
+ */
+class CountryCodeSetKeyTest {
+    private final Continent europe = new Continent("EU", "Europe", null);
+    private final List<Country> countries = List.of(new Country("IT", "Italy", europe), new Country("FR", "France", europe));
+
+    /**
+     * This test method is used to test that the key copies the set, so changing the set does not change the key.
+     */
+    @Test
+    void ofShouldCopyTheCodeSet() {
+        CountryCatalog catalog = CountryCatalog.of(countries);
+        BitSet codeSet = catalog.toCodeSet(List.of("IT"));
+        CountryCodeSetKey key = CountryCodeSetKey.of(catalog, codeSet);
+
+        codeSet.set(CountryCodeSlots.slotOf("FR"));
+
+        assertEquals(catalog.toCodeSet(List.of("IT")), key.toCodeSet());
+        assertEquals(CountryCodeSetKey.of(catalog, catalog.toCodeSet(List.of("IT"))), key);
+        assertEquals(CountryCodeSetKey.of(catalog, catalog.toCodeSet(List.of("IT"))).hashCode(), key.hashCode());
+    }
+
+    /**
+     * This test method is used to test that the same codes resolved against different snapshots get different keys.
+     */
+    @Test
+    void keysOfDifferentSnapshotsShouldNotBeEqual() {
+        CountryCatalog catalog = CountryCatalog.of(countries);
+        CountryCatalog refreshedCatalog = CountryCatalog.of(countries);
+
+        assertNotEquals(CountryCodeSetKey.of(catalog, catalog.toCodeSet(List.of("IT"))),
+                CountryCodeSetKey.of(refreshedCatalog, refreshedCatalog.toCodeSet(List.of("IT"))));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.takehome.catalog;
+
+import com.example.takehome.dto.ContinentCountryData;
+import com.example.takehome.dto.batch.CountryBatchResult;
+import com.example.takehome.model.Continent;
+import com.example.takehome.model.Country;
+import com.example.takehome.util.Util;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+/**
+ * This class is used to test the pre-encoded JSON fragments of the catalog.
+ */
+class CountryJsonFragmentsTest {
+    private final Continent northAmerica = new Continent("NA", "North America", null);
+    private final Continent europe = new Continent("EU", "Europe", null);
+
+    private final CountryCatalog catalog = CountryCatalog.of(List.of(
+            new Country("US", "USA", northAmerica),
+            new Country("CA", "Canada", northAmerica),
+            new Country("IT", "Italy", europe),
+            new Country("FR", "France", europe)
+    ));
+
+    /**
+     * This test method is used to test that the fragments produce the same JSON as Jackson.
+     */
+    @Test
+    void writeShouldMatchJackson() throws IOException {
+        assertSameJsonAsJackson(Util.convertToContinentCountries(catalog, catalog.toCodeSet(List.of("CA", "IT", "US"))));
+        assertSameJsonAsJackson(List.of());
+    }
+
+    /**
+     * This test method is used to test the results naming a continent or a code which is not in the catalog.
+     * It should encode them on the fly.
+     */
+    @Test
+    void writeShouldEncodeUnknownContinents() throws IOException {
+        ContinentCountryData unknownContinent = new ContinentCountryData();
+        unknownContinent.setName("Atlantis \"Lost\"");
+        unknownContinent.setCountries(List.of("X1"));
+        unknownContinent.setOtherCountries(List.of("AA", "BB"));
+
+        assertSameJsonAsJackson(List.of(unknownContinent));
+    }
+
+    /**
+     * This test method is used to test the batch results, written as the lines of the streaming responses.
+     * The null fields should be omitted like Jackson does.
+     */
+    @Test
+    void writeBatchResultShouldMatchJackson() throws IOException {
+        assertSameJsonAsJackson(CountryBatchResult.builder()
+                .query("CA, it")
+                .continents(Util.convertToContinentCountries(catalog, catalog.toCodeSet(List.of("CA", "IT"))))
+                .build());
+        assertSameJsonAsJackson(CountryBatchResult.builder().query("\"ZZ\"").error("Invalid code").build());
+        assertSameJsonAsJackson(CountryBatchResult.builder().error("Line too long").build());
+        assertSameJsonAsJackson(CountryBatchResult.builder().build());
+    }
+
+    private void assertSameJsonAsJackson(CountryBatchResult result) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        catalog.getJsonFragments().write(result, outputStream);
+
+        assertEquals(new ObjectMapper().writeValueAsString(result), outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    private void assertSameJsonAsJackson(List<ContinentCountryData> continentCountries) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        catalog.getJsonFragments().write(continentCountries, outputStream);
+
+        assertEquals(new ObjectMapper().writeValueAsString(continentCountries),
+                outputStream.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.takehome.config;
+
+import com.example.takehome.ratelimit.AdaptiveConcurrencyLimiter;
+import com.example.takehome.service.ConcurrencyLimitService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class is used to test the concurrency limit of the countries endpoints, applied by a filter.
+ */
+class ConcurrencyPermitFilterTest {
+    private final ConcurrencyLimitService concurrencyLimitService = new ConcurrencyLimitService(
+            new SimpleMeterRegistry(), 20, 4, 500, 1.5, 0.2, 600);
+    private final ConcurrencyPermitFilter filter = new ConcurrencyPermitFilter(
+            concurrencyLimitService, new ObjectMapper(), Duration.ofSeconds(10));
+
+    /**
+     * This test method is used to test that the permit of every countries endpoint, the batch and the stream included,
+     * is held while the response is written and released afterwards.
+     */
+    @Test
+    void filterShouldHoldPermitUntilTheChainIsDone() throws Exception {
+        for (String uri : List.of("/api/v1/public/countries/RO", "/api/v1/private/countries/batch",
+                "/api/v1/private/countries/stream")) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+            int[] inFlightWhileWriting = {-1};
+
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                ((HttpServletResponse) res).getWriter().write("[]");
+                inFlightWhileWriting[0] = concurrencyLimitService.getConcurrencyLimiter().getInFlight();
+            });
+
+            assertEquals(1, inFlightWhileWriting[0], uri);
+            assertEquals(0, concurrencyLimitService.getConcurrencyLimiter().getInFlight(), uri);
+            assertNull(request.getAttribute(ConcurrencyLimitService.PERMIT_ATTRIBUTE), uri);
+        }
+    }
+
+    /**
+     * This test method is used to test that the requests over the limit get a 503 response with a Retry-After header,
+     * without reaching the rest of the chain.
+     */
+    @Test
+    void filterShouldShedRequestsOverTheLimit() throws Exception {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        AdaptiveConcurrencyLimiter.Permit permit;
+        while ((permit = concurrencyLimitService.getConcurrencyLimiter().tryAcquire()) != null) {
+            permits.add(permit);
+        }
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/private/countries/stream"), response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(response.getContentAsString().contains("uri=/api/v1/private/countries/stream"));
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::release);
+    }
+
+    /**
+     * This test method is used to test that the other endpoints are not limited.
+     */
+    @Test
+    void filterShouldIgnoreOtherEndpoints() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        int[] inFlight = {-1};
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/auth/authenticate"), response,
+                (req, res) -> inFlight[0] = concurrencyLimitService.getConcurrencyLimiter().getInFlight());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(0, inFlight[0]);
+    }
+}
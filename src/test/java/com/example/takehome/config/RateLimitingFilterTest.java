@@ -0,0 +1,101 @@
+package com.example.takehome.config;
+
+import com.example.takehome.service.ClientRateLimitService;
+import com.example.takehome.service.JwtTokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * This class is used to test the early rejection of the rate limited requests.
+ */
+class RateLimitingFilterTest {
+    private final JwtTokenService jwtTokenService = mock(JwtTokenService.class);
+
+    @SuppressWarnings("unchecked")
+    private final ClientRateLimitService clientRateLimitService = new ClientRateLimitService(
+            RateLimiterRegistry.of(RateLimiterConfig.custom()
+                    .limitForPeriod(1)
+                    .limitRefreshPeriod(Duration.ofSeconds(2))
+                    .build()),
+            new SimpleMeterRegistry(), 100, 4, mock(ObjectProvider.class), 0.25, Duration.ofSeconds(30));
+
+    @SuppressWarnings("unchecked")
+    private final RateLimitingFilter filter = new RateLimitingFilter(
+            clientRateLimitService, mock(ObjectProvider.class), jwtTokenService, new ObjectMapper(), Duration.ofSeconds(10));
+
+    /**
+     * This test method is used to test that a client over its limit gets a 429 response with a Retry-After header,
+     * without reaching the rest of the chain.
+     */
+    @Test
+    void filterShouldRejectClientOverItsLimit() throws Exception {
+        MockFilterChain firstChain = new MockFilterChain();
+        filter.doFilter(publicRequest("10.0.0.1"), new MockHttpServletResponse(), firstChain);
+        assertNotNull(firstChain.getRequest());
+
+        MockFilterChain secondChain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(publicRequest("10.0.0.1"), response, secondChain);
+
+        assertNull(secondChain.getRequest());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(response.getContentAsString().contains("\"statusCode\":429"));
+        assertTrue(response.getContentAsString().contains("uri=/api/v1/public/countries"));
+    }
+
+    /**
+     * This test method is used to test that every remote address of the public endpoint has its own limit.
+     */
+    @Test
+    void filterShouldLimitEveryRemoteAddressSeparately() throws Exception {
+        filter.doFilter(publicRequest("10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(publicRequest("10.0.0.2"), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+    }
+
+    /**
+     * This test method is used to test that the private requests without a token are left to the security chain.
+     */
+    @Test
+    void filterShouldLeaveRequestsWithoutTokenToSecurityChain() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/private/countries/RO"), new MockHttpServletResponse(), chain);
+            assertNotNull(chain.getRequest());
+        }
+    }
+
+    /**
+     * This test method is used to test that the other endpoints are not limited by the filter.
+     */
+    @Test
+    void filterShouldIgnoreOtherEndpoints() {
+        assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("POST", "/api/v1/auth/authenticate")));
+        assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("POST", "/api/v1/private/countries/batch")));
+        assertFalse(filter.shouldNotFilter(new MockHttpServletRequest("POST", "/api/v1/private/countries/stream")));
+    }
+
+    private static MockHttpServletRequest publicRequest(String remoteAddress) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/public/countries/RO");
+        request.setRemoteAddr(remoteAddress);
+        return request;
+    }
+}
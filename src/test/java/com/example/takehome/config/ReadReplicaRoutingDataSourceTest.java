@@ -0,0 +1,102 @@
+package com.example.takehome.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class is used to test the routing of the connections between the primary database and the read replicas.
+ */
+class ReadReplicaRoutingDataSourceTest {
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource firstReplica = mock(DataSource.class);
+    private final DataSource secondReplica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection firstReplicaConnection = mock(Connection.class);
+    private final Connection secondReplicaConnection = mock(Connection.class);
+
+    private final ReadReplicaRoutingDataSource routingDataSource = new ReadReplicaRoutingDataSource(
+            primary, List.of(firstReplica, secondReplica), Duration.ofMinutes(1), Duration.ofSeconds(10));
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(firstReplica.getConnection()).thenReturn(firstReplicaConnection);
+        when(secondReplica.getConnection()).thenReturn(secondReplicaConnection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    /**
+     * This test method is used to test that only the read-only transactions use the replicas, in turn.
+     */
+    @Test
+    void readOnlyTransactionsShouldUseReplicasInTurn() throws SQLException {
+        assertSame(primaryConnection, routingDataSource.getConnection());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(firstReplicaConnection, routingDataSource.getConnection());
+        assertSame(secondReplicaConnection, routingDataSource.getConnection());
+        assertSame(firstReplicaConnection, routingDataSource.getConnection());
+    }
+
+    /**
+     * This test method is used to test that an unavailable replica is skipped until its retry delay has elapsed,
+     * and that the primary is used when no replica is available.
+     */
+    @Test
+    void unavailableReplicasShouldFailOverToPrimary() throws SQLException {
+        when(firstReplica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(secondReplicaConnection, routingDataSource.getConnection());
+        assertSame(secondReplicaConnection, routingDataSource.getConnection());
+        verify(firstReplica, times(1)).getConnection();
+
+        when(secondReplica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    /**
+     * This test method is used to test that the probe skips a lagging replica until it catches up.
+     */
+    @Test
+    void laggingReplicasShouldBeSkippedUntilProbed() throws SQLException {
+        ResultSet firstReplicaLag = mockLag(firstReplicaConnection);
+        when(firstReplicaLag.getDouble(1)).thenReturn(30.0);
+        mockLag(secondReplicaConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        routingDataSource.probeReplicas();
+        assertSame(secondReplicaConnection, routingDataSource.getConnection());
+        assertSame(secondReplicaConnection, routingDataSource.getConnection());
+
+        when(firstReplicaLag.getDouble(1)).thenReturn(0.5);
+        routingDataSource.probeReplicas();
+        assertSame(firstReplicaConnection, routingDataSource.getConnection());
+    }
+
+    private static ResultSet mockLag(Connection connection) throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        return resultSet;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.takehome.controller;
+
+import com.example.takehome.config.ReactiveConcurrencyPermitFilter;
+import com.example.takehome.config.ReactiveWebConfiguration;
+import com.example.takehome.exception.ReactiveExceptionHandler;
+import com.example.takehome.model.Continent;
+import com.example.takehome.model.Country;
+import com.example.takehome.repository.CountryRepository;
+import com.example.takehome.ratelimit.AdaptiveConcurrencyLimiter;
+import com.example.takehome.service.ConcurrencyLimitService;
+import com.example.takehome.service.CountryCatalogSnapshotService;
+import com.example.takehome.service.CountryService;
+import com.example.takehome.service.PipelineStageTimers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * This class is used to test the countries routes of the reactive serving mode, without a server nor a database.
+ */
+class ReactiveCountriesHandlerTest {
+    private final Continent northAmerica = new Continent("NA", "North America", null);
+    private final Continent europe = new Continent("EU", "Europe", null);
+
+    private WebTestClient webTestClient;
+    private ConcurrencyLimitService concurrencyLimitService;
+
+    @BeforeEach
+    void setUp() {
+        CountryRepository countryRepository = mock(CountryRepository.class);
+        when(countryRepository.findAllWithContinent()).thenReturn(List.of(
+                new Country("US", "United States", northAmerica),
+                new Country("CA", "Canada", northAmerica),
+                new Country("IT", "Italy", europe)
+        ));
+        PipelineStageTimers pipelineStageTimers = new PipelineStageTimers(new SimpleMeterRegistry());
+        CountryService countryService = new CountryService(countryRepository, new CountryCatalogSnapshotService("", Duration.ZERO),
+                pipelineStageTimers);
+        countryService.refreshCountryCatalog();
+        concurrencyLimitService = new ConcurrencyLimitService(new SimpleMeterRegistry(), 20, 4, 500, 1.5, 0.2, 600);
+
+        webTestClient = WebTestClient
+                .bindToRouterFunction(new ReactiveWebConfiguration().countriesApiRoutes(
+                        new ReactiveCountriesHandler(countryService, pipelineStageTimers), mock(ReactiveAuthenticationHandler.class)))
+                .webFilter(new ReactiveConcurrencyPermitFilter(concurrencyLimitService))
+                .handlerStrategies(HandlerStrategies.builder()
+                        .exceptionHandler(new ReactiveExceptionHandler(new ObjectMapper(), Duration.ofSeconds(10)))
+                        .build())
+                .build();
+    }
+
+    /**
+     * This test method is used to test that the public route returns the same JSON as the servlet endpoint.
+     */
+    @Test
+    void publicRouteShouldReturnCountryData() {
+        webTestClient.get().uri("/api/v1/public/countries/us,IT")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody().json("""
+                        [{"countries":["IT"],"name":"Europe","otherCountries":[]},
+                         {"countries":["US"],"name":"North America","otherCountries":["CA"]}]
+                        """);
+    }
+
+    /**
+     * This test method is used to test the conditional requests.
+     * It should return 304 Not Modified when the client sends back the ETag of the data.
+     */
+    @Test
+    void routeShouldReturnNotModifiedForCurrentETag() {
+        String eTag = webTestClient.get().uri("/api/v1/private/countries/CA")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient.get().uri("/api/v1/private/countries/ca,ZZ")
+                .header("If-None-Match", eTag)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_MODIFIED)
+                .expectHeader().valueEquals("ETag", eTag);
+    }
+
+    /**
+     * This test method is used to test the error message returned for invalid country codes.
+     */
+    @Test
+    void routeShouldRejectInvalidCountryCodes() {
+        webTestClient.get().uri("/api/v1/public/countries/ZZ,YY")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.statusCode").isEqualTo(400)
+                .jsonPath("$.message").isEqualTo("Your request could not be processed. " + CountryService.ONLY_INVALID_COUNTRY_CODES)
+                .jsonPath("$.description").isEqualTo("uri=/api/v1/public/countries/ZZ,YY");
+    }
+
+    /**
+     * This test method is used to test that the concurrency permit is released once the response is written,
+     * including for the rejected requests.
+     */
+    @Test
+    void routeShouldReleaseConcurrencyPermitOnceResponseIsWritten() {
+        webTestClient.get().uri("/api/v1/public/countries/US").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/api/v1/public/countries/ZZ").exchange().expectStatus().isBadRequest();
+
+        assertEquals(0, concurrencyLimitService.getConcurrencyLimiter().getInFlight());
+    }
+
+    /**
+     * This test method is used to test that the requests over the concurrency limit are shed with 503 Service Unavailable.
+     */
+    @Test
+    void routeShouldShedRequestsOverConcurrencyLimit() {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        AdaptiveConcurrencyLimiter.Permit permit;
+        while ((permit = concurrencyLimitService.getConcurrencyLimiter().tryAcquire()) != null) {
+            permits.add(permit);
+        }
+
+        webTestClient.get().uri("/api/v1/private/countries/US")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1");
+
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::release);
+        webTestClient.get().uri("/api/v1/private/countries/US").exchange().expectStatus().isOk();
+    }
+}
@@ -19,6 +19,7 @@ import static org.junit.jupiter.api.Assertions.fail;
  * It is not a test class, but it is used to generate the flyway migration script SQL statements for populating latest data.
  * The SQL instructions are generated by running the test method.
  * The SQL instructions should be used to generate flyway scripts like this: src/main/resources/db/migration/V3__Populate_Data.sql file.
+ * The catalog data can also be generated as the CSV files loaded by the db.migration.R__Load_Catalog_Data migration.
  */
 @ActiveProfiles("test")
 @SpringBootTest
@@ -49,6 +50,32 @@ class FlywayMigrationScriptGeneratorTest {
         }
     }
 
+    /**
+     * Prints the latest continent and country data as the CSV files loaded by the R__Load_Catalog_Data migration.
+     * The output should replace the src/main/resources/db/data/continents.csv and countries.csv files,
+     * the migration loads them again on the next start since their checksum changed.
+     */
+    @Test
+    public void generateCatalogCsvData() {
+        ContinentGqlData continentDto = graphQlService.getContinentsWithCountries();
+
+        System.out.println("-- continents.csv");
+        System.out.println("code,name");
+        continentDto.getData().getContinents().forEach(continent ->
+                System.out.println(toCsvValue(continent.getCode()) + "," + toCsvValue(continent.getName())));
+
+        System.out.println("-- countries.csv");
+        System.out.println("code,name,continent_code");
+        continentDto.getData().getContinents().forEach(continent -> continent.getCountries().forEach(country ->
+                System.out.println(toCsvValue(country.getCode()) + "," + toCsvValue(country.getName()) + "," + toCsvValue(continent.getCode()))));
+        // Should be more than 5 continents
+        assertTrue(continentDto.getData().getContinents().size() > 5);
+    }
+
+    private static String toCsvValue(String value) {
+        return value.contains(",") || value.contains("\"") ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+
 // Test users:
 //    FirstName: Emily, LastName: Johnson, Email: emily.johnson@example.com, Password: Zd3k9XsT
 //    FirstName: Carlos, LastName: Rodriguez, Email: carlos.rodriguez@example.com, Password: Hg7fDp2R
@@ -0,0 +1,91 @@
+package com.example.takehome.integration;
+
+import com.example.takehome.dto.ContinentCountryData;
+import com.example.takehome.repository.CountryRepository;
+import com.example.takehome.service.CountryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests counting the SQL statements executed by the country data read path.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "SPRING_DATASOURCE_URL=jdbc:postgresql://localhost:5432/postgres?currentSchema=country_api",
+        "SPRING_DATASOURCE_USERNAME=postgres",
+        "SPRING_DATASOURCE_PASSWORD=p123321!",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CountryQueryCountTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CountryService countryService;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * Tests that the catalog, with all the countries and their continents, is loaded by a single query.
+     */
+    @Test
+    public void catalogShouldBeLoadedWithOneStatement() {
+        countryService.refreshCountryCatalog();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(countryService.getCountryCatalog().size() > 200);
+    }
+
+    /**
+     * Tests that the country data requests do not query the database, whatever the number of countries and continents.
+     */
+    @Test
+    public void countryDataRequestsShouldNotQueryDatabase() {
+        ResponseEntity<ContinentCountryData[]> response = restTemplate.getForEntity("/api/v1/public/countries/CA,US,RO,IT,CN,AR", ContinentCountryData[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        response = restTemplate.getForEntity("/api/v1/public/countries/AF,AQ,AU", ContinentCountryData[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Tests that the countries and their continents are found in the second-level cache once loaded.
+     */
+    @Test
+    public void countriesShouldBeReadFromSecondLevelCache() {
+        countryRepository.findById("IT");
+        long statementCount = statistics.getPrepareStatementCount();
+
+        assertTrue(countryRepository.findById("IT").isPresent());
+        assertTrue(countryRepository.findById("IT").isPresent());
+
+        assertEquals(statementCount, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 2);
+    }
+}
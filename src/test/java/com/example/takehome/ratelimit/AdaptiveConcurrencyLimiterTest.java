@@ -0,0 +1,117 @@
+package com.example.takehome.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class is used to test the adaptive concurrency limit, on a manual clock.
+ */
+class AdaptiveConcurrencyLimiterTest {
+    private final AtomicLong clock = new AtomicLong();
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, 2, 100, 1.5, 0.2, 600, clock::get);
+    }
+
+    /**
+     * This test method is used to test that the calls over the limit are rejected and the released permits are reused.
+     */
+    @Test
+    void tryAcquireShouldRejectCallsOverTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2);
+
+        AdaptiveConcurrencyLimiter.Permit first = limiter.tryAcquire();
+        assertNotNull(first);
+        assertNotNull(limiter.tryAcquire());
+        assertNull(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getRejectedCalls());
+
+        first.release();
+        assertNotNull(limiter.tryAcquire());
+    }
+
+    /**
+     * This test method is used to test that the limit grows while the saturated calls keep a steady latency.
+     */
+    @Test
+    void releaseShouldGrowLimitWithSteadyLatency() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+
+        runSaturatedRounds(limiter, 20, 1_000_000);
+
+        assertTrue(limiter.getLimit() > 10, "limit " + limiter.getLimit());
+    }
+
+    /**
+     * This test method is used to test that the limit shrinks when the latency rises over the tolerance.
+     */
+    @Test
+    void releaseShouldShrinkLimitWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        runSaturatedRounds(limiter, 20, 1_000_000);
+        int limitBefore = limiter.getLimit();
+
+        runSaturatedRounds(limiter, 5, 5_000_000);
+
+        assertTrue(limiter.getLimit() < limitBefore, "limit " + limitBefore + " -> " + limiter.getLimit());
+    }
+
+    /**
+     * This test method is used to test that the calls which do not use the limit do not grow it.
+     */
+    @Test
+    void releaseShouldKeepLimitWhenUnderused() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+
+        for (int i = 0; i < 100; i++) {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+            clock.addAndGet(1_000_000);
+            permit.release();
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    /**
+     * This test method is used to test that the permits released without a sample free their slot
+     * without changing the limit.
+     */
+    @Test
+    void releaseUnsampledShouldKeepLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+
+        for (int round = 0; round < 20; round++) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            AdaptiveConcurrencyLimiter.Permit permit;
+            while ((permit = limiter.tryAcquire()) != null) {
+                permits.add(permit);
+            }
+            clock.addAndGet(1_000_000_000L);
+            permits.forEach(AdaptiveConcurrencyLimiter.Permit::releaseUnsampled);
+        }
+
+        assertEquals(10, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * Runs rounds of calls using the whole limit, all of them taking the given latency.
+     */
+    private void runSaturatedRounds(AdaptiveConcurrencyLimiter limiter, int rounds, long latencyNanos) {
+        for (int round = 0; round < rounds; round++) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            AdaptiveConcurrencyLimiter.Permit permit;
+            while ((permit = limiter.tryAcquire()) != null) {
+                permits.add(permit);
+            }
+            clock.addAndGet(latencyNanos);
+            permits.forEach(AdaptiveConcurrencyLimiter.Permit::release);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.takehome.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class is used to test the queue of the calls waiting for a permit, on a manual clock.
+ */
+class FairWaitingQueueTest {
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final List<String> answers = new ArrayList<>();
+    private final List<String> refunds = new ArrayList<>();
+
+    private FairWaitingQueue.WaitingCall offer(FairWaitingQueue queue, String clientKey, String call) {
+        return queue.offer(clientKey, Duration.ofSeconds(1), () -> answers.add(call + " granted"), () -> answers.add(call + " expired"));
+    }
+
+    /**
+     * This test method is used to test that a drain grants at most one call per client, in the order of the calls.
+     */
+    @Test
+    void drainShouldGrantOneCallPerClient() {
+        FairWaitingQueue queue = new FairWaitingQueue(10, 10, clock::get);
+        offer(queue, "alice", "a1");
+        offer(queue, "alice", "a2");
+        offer(queue, "bob", "b1");
+
+        queue.drain(clientKey -> true, refunds::add);
+
+        assertEquals(List.of("a1 granted", "b1 granted"), answers);
+        assertEquals(1, queue.getWaiting());
+
+        queue.drain(clientKey -> true, refunds::add);
+
+        assertEquals(List.of("a1 granted", "b1 granted", "a2 granted"), answers);
+        assertEquals(0, queue.getWaiting());
+        assertEquals(3, queue.getGrantedCalls());
+    }
+
+    /**
+     * This test method is used to test that the calls without a permit keep waiting until their deadline.
+     */
+    @Test
+    void drainShouldExpireCallsAtTheirDeadline() {
+        FairWaitingQueue queue = new FairWaitingQueue(10, 10, clock::get);
+        offer(queue, "alice", "a1");
+        offer(queue, "bob", "b1");
+
+        queue.drain(clientKey -> false, refunds::add);
+        assertTrue(answers.isEmpty());
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        queue.drain(Set.of("bob")::contains, refunds::add);
+
+        assertEquals(List.of("a1 expired", "b1 expired"), answers);
+        assertEquals(0, queue.getWaiting());
+        assertEquals(2, queue.getExpiredCalls());
+    }
+
+    /**
+     * This test method is used to test that the queue is bounded in total and per client.
+     */
+    @Test
+    void offerShouldRefuseCallsOverTheBounds() {
+        FairWaitingQueue queue = new FairWaitingQueue(3, 2, clock::get);
+        assertNotNull(offer(queue, "alice", "a1"));
+        assertNotNull(offer(queue, "alice", "a2"));
+        assertNull(offer(queue, "alice", "a3"));
+        assertNotNull(offer(queue, "bob", "b1"));
+        assertNull(offer(queue, "carol", "c1"));
+
+        assertEquals(3, queue.getWaiting());
+        assertEquals(2, queue.getRefusedCalls());
+    }
+
+    /**
+     * This test method is used to test that a cancelled call leaves the queue and never takes a permit.
+     */
+    @Test
+    void cancelShouldRemoveWaitingCall() {
+        FairWaitingQueue queue = new FairWaitingQueue(10, 10, clock::get);
+        FairWaitingQueue.WaitingCall call = offer(queue, "alice", "a1");
+        offer(queue, "bob", "b1");
+        List<String> acquired = new ArrayList<>();
+
+        assertTrue(call.cancel());
+        assertFalse(call.cancel());
+        queue.drain(clientKey -> acquired.add(clientKey), refunds::add);
+
+        assertEquals(List.of("bob"), acquired);
+        assertEquals(List.of("b1 granted"), answers);
+        assertEquals(0, queue.getWaiting());
+        assertEquals(1, queue.getCancelledCalls());
+    }
+
+    /**
+     * This test method is used to test that a call cancelled while its permit is acquired leaves the permit
+     * to the next call of the client.
+     */
+    @Test
+    void drainShouldGrantNextCallWhenCallIsCancelledDuringAcquire() {
+        FairWaitingQueue queue = new FairWaitingQueue(10, 10, clock::get);
+        FairWaitingQueue.WaitingCall call = offer(queue, "alice", "a1");
+        offer(queue, "alice", "a2");
+
+        queue.drain(clientKey -> call.cancel(), refunds::add);
+
+        assertEquals(List.of("a2 granted"), answers);
+        assertEquals(0, queue.getWaiting());
+        assertEquals(1, queue.getGrantedCalls());
+        assertTrue(refunds.isEmpty());
+    }
+
+    /**
+     * This test method is used to test that the permit acquired for a client whose only call was cancelled meanwhile
+     * is refunded.
+     */
+    @Test
+    void drainShouldRefundPermitWhenLastCallIsCancelledDuringAcquire() {
+        FairWaitingQueue queue = new FairWaitingQueue(10, 10, clock::get);
+        FairWaitingQueue.WaitingCall call = offer(queue, "alice", "a1");
+
+        queue.drain(clientKey -> call.cancel(), refunds::add);
+
+        assertTrue(answers.isEmpty());
+        assertEquals(List.of("alice"), refunds);
+        assertEquals(0, queue.getGrantedCalls());
+    }
+
+    /**
+     * This test method is used to test that a permit acquired outside of the drain grants the oldest call of the client,
+     * and is reported unused when the client has no waiting call.
+     */
+    @Test
+    void grantShouldGrantOldestCallOfClient() {
+        FairWaitingQueue queue = new FairWaitingQueue(10, 10, clock::get);
+        offer(queue, "alice", "a1");
+        offer(queue, "alice", "a2");
+
+        assertTrue(queue.grant("alice"));
+        assertTrue(queue.grant("alice"));
+        assertFalse(queue.grant("alice"));
+
+        assertEquals(List.of("a1 granted", "a2 granted"), answers);
+        assertEquals(0, queue.getWaiting());
+        assertEquals(2, queue.getGrantedCalls());
+    }
+
+    /**
+     * This test method is used to test that all the waiting calls are expired when the queue is stopped.
+     */
+    @Test
+    void expireAllShouldExpireWaitingCalls() {
+        FairWaitingQueue queue = new FairWaitingQueue(10, 10, clock::get);
+        offer(queue, "alice", "a1");
+        offer(queue, "bob", "b1");
+
+        queue.expireAll();
+
+        assertEquals(List.of("a1 expired", "b1 expired"), answers);
+        assertEquals(0, queue.getWaiting());
+    }
+}
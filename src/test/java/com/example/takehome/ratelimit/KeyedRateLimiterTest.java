@@ -0,0 +1,118 @@
+package com.example.takehome.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class is used to test the per key rate limiter, on a manual clock.
+ */
+class KeyedRateLimiterTest {
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    private KeyedRateLimiter rateLimiter(int limitForPeriod, int maxKeys, int stripes) {
+        return new KeyedRateLimiter("test", limitForPeriod, Duration.ofSeconds(1), maxKeys, stripes, clock::get);
+    }
+
+    /**
+     * This test method is used to test that every key has its own permits.
+     */
+    @Test
+    void tryAcquireShouldLimitEveryKeySeparately() {
+        KeyedRateLimiter rateLimiter = rateLimiter(5, 100, 4);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire("10.0.0.1", 1));
+        }
+        assertFalse(rateLimiter.tryAcquire("10.0.0.1", 1));
+        assertTrue(rateLimiter.tryAcquire("10.0.0.2", 1));
+
+        assertEquals(6, rateLimiter.getPermittedCalls());
+        assertEquals(1, rateLimiter.getRejectedCalls());
+        assertEquals(List.of(new KeyedRateLimiter.KeyRejections("10.0.0.1", 1)), rateLimiter.topRejectedKeys(10));
+    }
+
+    /**
+     * This test method is used to test that the permits are refilled continuously.
+     */
+    @Test
+    void tryAcquireShouldRefillPermitsOverTime() {
+        KeyedRateLimiter rateLimiter = rateLimiter(5, 100, 4);
+        assertTrue(rateLimiter.tryAcquire("user", 5));
+        assertFalse(rateLimiter.tryAcquire("user", 1));
+        assertEquals(Duration.ofMillis(200), rateLimiter.timeToRefill("user", 1));
+
+        clock.addAndGet(Duration.ofMillis(200).toNanos());
+
+        assertEquals(Duration.ZERO, rateLimiter.timeToRefill("user", 1));
+        assertTrue(rateLimiter.tryAcquire("user", 1));
+        assertFalse(rateLimiter.tryAcquire("user", 1));
+    }
+
+    /**
+     * This test method is used to test that more permits than the limit are never acquired.
+     */
+    @Test
+    void tryAcquireShouldRejectMorePermitsThanTheLimit() {
+        KeyedRateLimiter rateLimiter = rateLimiter(5, 100, 4);
+
+        assertFalse(rateLimiter.tryAcquire("user", 6));
+        assertTrue(rateLimiter.tryAcquire("user", 5));
+    }
+
+    /**
+     * This test method is used to test that the keys with all their permits are evicted.
+     */
+    @Test
+    void evictIdleShouldRemoveRefilledKeys() {
+        KeyedRateLimiter rateLimiter = rateLimiter(5, 100, 4);
+        rateLimiter.tryAcquire("idle", 1);
+        rateLimiter.tryAcquire("busy", 5);
+
+        clock.addAndGet(Duration.ofMillis(500).toNanos());
+
+        assertEquals(1, rateLimiter.evictIdle());
+        assertEquals(1, rateLimiter.trackedKeys());
+        assertFalse(rateLimiter.tryAcquire("busy", 5));
+    }
+
+    /**
+     * This test method is used to test that the number of tracked keys is bounded and the extra keys are still limited.
+     */
+    @Test
+    void tryAcquireShouldBoundTrackedKeys() {
+        KeyedRateLimiter rateLimiter = rateLimiter(2, 2, 1);
+        assertTrue(rateLimiter.tryAcquire("a", 2));
+        assertTrue(rateLimiter.tryAcquire("b", 2));
+
+        // The table is full of active keys, the new keys share the overflow bucket
+        assertTrue(rateLimiter.tryAcquire("c", 1));
+        assertTrue(rateLimiter.tryAcquire("d", 1));
+        assertFalse(rateLimiter.tryAcquire("e", 1));
+        assertEquals(2, rateLimiter.trackedKeys());
+
+        // Once the keys are idle, they make room for the new ones
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(rateLimiter.tryAcquire("e", 2));
+        assertEquals(1, rateLimiter.trackedKeys());
+    }
+
+    /**
+     * This test method is used to test that refunded permits can be acquired again and are not counted as permitted.
+     */
+    @Test
+    void refundShouldGiveBackPermits() {
+        KeyedRateLimiter rateLimiter = rateLimiter(5, 100, 4);
+        assertTrue(rateLimiter.tryAcquire("user", 5));
+
+        rateLimiter.refund("user", 2);
+
+        assertTrue(rateLimiter.tryAcquire("user", 2));
+        assertFalse(rateLimiter.tryAcquire("user", 1));
+        assertEquals(1, rateLimiter.getPermittedCalls());
+    }
+}
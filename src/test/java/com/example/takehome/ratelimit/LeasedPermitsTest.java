@@ -0,0 +1,247 @@
+package com.example.takehome.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class is used to test the cluster-wide permits leased from a shared store, on a manual clock.
+ */
+class LeasedPermitsTest {
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final FakeStore store = new FakeStore();
+
+    private LeasedPermits leasedPermits(int maxKeys) {
+        return new LeasedPermits("test", store, 20, Duration.ofSeconds(1), 0.25, maxKeys, Duration.ofSeconds(30), clock::get);
+    }
+
+    /**
+     * This test method is used to test that the store is called once per lease, not once per call.
+     */
+    @Test
+    void tryAcquireShouldLeasePermitsInBatches() {
+        LeasedPermits leasedPermits = leasedPermits(100);
+        store.available = 20;
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(leasedPermits.tryAcquire("user", 1));
+        }
+
+        assertEquals(List.of("test:user/5", "test:user/5"), store.leases);
+        assertEquals(2, leasedPermits.getLeaseCount());
+    }
+
+    /**
+     * This test method is used to test that the calls are rejected when the shared permits are used by the other nodes.
+     */
+    @Test
+    void tryAcquireShouldRejectWhenStoreHasNoPermits() {
+        LeasedPermits leasedPermits = leasedPermits(100);
+        store.available = 2;
+
+        assertTrue(leasedPermits.tryAcquire("user", 1));
+        assertTrue(leasedPermits.tryAcquire("user", 1));
+        assertFalse(leasedPermits.tryAcquire("user", 1));
+        assertEquals(1, leasedPermits.getRejectedCalls());
+    }
+
+    /**
+     * This test method is used to test that the leased permits expire after the limit refresh period.
+     */
+    @Test
+    void tryAcquireShouldRenewExpiredLeases() {
+        LeasedPermits leasedPermits = leasedPermits(100);
+        store.available = 20;
+        assertTrue(leasedPermits.tryAcquire("user", 1));
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals(1, leasedPermits.evictExpired());
+        assertTrue(leasedPermits.tryAcquire("user", 1));
+
+        assertEquals(2, store.leases.size());
+    }
+
+    /**
+     * This test method is used to test that the unused permits of an expired lease are given back with the next lease.
+     */
+    @Test
+    void tryAcquireShouldReleaseUnusedPermitsOfExpiredLease() {
+        LeasedPermits leasedPermits = leasedPermits(100);
+        store.available = 5;
+        assertTrue(leasedPermits.tryAcquire("user", 1));
+        assertEquals(0, store.available);
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(leasedPermits.tryAcquire("user", 1));
+
+        // The 4 unused permits were given back, and 5 leased again
+        assertEquals(List.of("test:user/5", "test:user/5"), store.leases);
+        assertEquals(0, store.available);
+        assertEquals(0, leasedPermits.getRejectedCalls());
+    }
+
+    /**
+     * This test method is used to test that the unused permits of the evicted leases are given back to the store.
+     */
+    @Test
+    void evictExpiredShouldReleaseUnusedPermits() {
+        LeasedPermits leasedPermits = leasedPermits(100);
+        store.available = 20;
+        assertTrue(leasedPermits.tryAcquire("a", 1));
+        assertTrue(leasedPermits.tryAcquire("b", 2));
+        assertEquals(10, store.available);
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals(2, leasedPermits.evictExpired());
+
+        assertEquals(17, store.available);
+    }
+
+    /**
+     * This test method is used to test that the refunded permits are taken again from the lease, without the store.
+     */
+    @Test
+    void refundShouldReturnPermitsToLease() {
+        LeasedPermits leasedPermits = leasedPermits(100);
+        store.available = 5;
+        for (int i = 0; i < 5; i++) {
+            assertTrue(leasedPermits.tryAcquire("user", 1));
+        }
+
+        leasedPermits.refund("user", 1);
+
+        assertTrue(leasedPermits.tryAcquire("user", 1));
+        assertEquals(1, store.leases.size());
+    }
+
+    /**
+     * This test method is used to test that the calls are permitted without the store while it fails.
+     */
+    @Test
+    void tryAcquireShouldPermitCallsWhileStoreFails() {
+        LeasedPermits leasedPermits = leasedPermits(100);
+        store.failing = true;
+
+        assertTrue(leasedPermits.tryAcquire("user", 1));
+        assertTrue(leasedPermits.tryAcquire("user", 1));
+
+        assertEquals(1, leasedPermits.getFailedLeases());
+        assertEquals(1, store.leases.size());
+    }
+
+    /**
+     * This test method is used to test that the keys arriving when the table is full lease the exact permits of the call.
+     */
+    @Test
+    void tryAcquireShouldLeaseExactPermitsWhenTableIsFull() {
+        LeasedPermits leasedPermits = leasedPermits(1);
+        store.available = 20;
+        assertTrue(leasedPermits.tryAcquire("a", 1));
+
+        assertTrue(leasedPermits.tryAcquire("b", 2));
+
+        assertEquals(List.of("test:a/5", "test:b/2"), store.leases);
+    }
+
+    /**
+     * This test method is used to test that the concurrent calls of a key wait for the renewal in flight
+     * instead of leasing again, and take their permits from the renewed lease.
+     */
+    @Test
+    void tryAcquireShouldRenewLeaseOnceForConcurrentCalls() throws Exception {
+        CountDownLatch leasing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger leaseCalls = new AtomicInteger();
+        PermitLeaseStore slowStore = new PermitLeaseStore() {
+            @Override
+            public int lease(String bucketKey, int releasedPermits, int requestedPermits, int limitForPeriod,
+                             Duration limitRefreshPeriod) {
+                leaseCalls.incrementAndGet();
+                leasing.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return requestedPermits;
+            }
+
+            @Override
+            public void release(Map<String, Integer> releasedPermits, int limitForPeriod, Duration limitRefreshPeriod) {
+            }
+
+            @Override
+            public int deleteIdleBuckets() {
+                return 0;
+            }
+        };
+        LeasedPermits leasedPermits = new LeasedPermits(
+                "test", slowStore, 20, Duration.ofSeconds(1), 0.25, 100, Duration.ofSeconds(30), clock::get);
+
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> leasedPermits.tryAcquire("user", 1));
+        assertTrue(leasing.await(5, TimeUnit.SECONDS));
+        AtomicInteger permitted = new AtomicInteger();
+        Thread waiting = new Thread(() -> {
+            if (leasedPermits.tryAcquire("user", 1)) {
+                permitted.incrementAndGet();
+            }
+        });
+        waiting.start();
+        // The second call waits for the renewal of the first one
+        while (waiting.getState() != Thread.State.WAITING && waiting.isAlive()) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        waiting.join(5000);
+        assertEquals(1, permitted.get());
+        assertEquals(1, leaseCalls.get());
+        assertEquals(0, leasedPermits.getRejectedCalls());
+    }
+
+    /**
+     * Store granting the permits of a single counter and recording the leases.
+     */
+    private static final class FakeStore implements PermitLeaseStore {
+        private final List<String> leases = new ArrayList<>();
+        private int available;
+        private boolean failing;
+
+        @Override
+        public int lease(String bucketKey, int releasedPermits, int requestedPermits, int limitForPeriod,
+                         Duration limitRefreshPeriod) {
+            leases.add(bucketKey + "/" + requestedPermits);
+            if (failing) {
+                throw new IllegalStateException("The store is unavailable");
+            }
+            available += releasedPermits;
+            int granted = Math.min(available, requestedPermits);
+            available -= granted;
+            return granted;
+        }
+
+        @Override
+        public void release(Map<String, Integer> releasedPermits, int limitForPeriod, Duration limitRefreshPeriod) {
+            if (failing) {
+                throw new IllegalStateException("The store is unavailable");
+            }
+            releasedPermits.values().forEach(permits -> available += permits);
+        }
+
+        @Override
+        public int deleteIdleBuckets() {
+            return 0;
+        }
+    }
+}
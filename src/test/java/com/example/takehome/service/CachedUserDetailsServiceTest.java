@@ -0,0 +1,42 @@
+package com.example.takehome.service;
+
+import com.example.takehome.enums.UserRole;
+import com.example.takehome.model.User;
+import com.example.takehome.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * This class is used to test the users cached for the JWT tokens issued without the user claims.
+ */
+class CachedUserDetailsServiceTest {
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final CachedUserDetailsService cachedUserDetailsService = new CachedUserDetailsService(userRepository);
+
+    /**
+     * This test method is used to test that the loaded user is an immutable copy of the entity, without the password hash.
+     */
+    @Test
+    void loadUserByUsernameShouldCopyUserWithoutPassword() {
+        User user = User.builder()
+                .email("emily.johnson@example.com")
+                .password("$2a$10$hash")
+                .userRole(UserRole.USER)
+                .build();
+        when(userRepository.findByEmail("emily.johnson@example.com")).thenReturn(Optional.of(user));
+
+        UserDetails userDetails = cachedUserDetailsService.loadUserByUsername("emily.johnson@example.com");
+
+        assertFalse(userDetails instanceof User);
+        assertEquals("emily.johnson@example.com", userDetails.getUsername());
+        assertEquals("", userDetails.getPassword());
+        assertEquals(user.getAuthorities().size(), userDetails.getAuthorities().size());
+        assertTrue(userDetails.getAuthorities().containsAll(user.getAuthorities()));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.takehome.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class is used to test the scheduled catalog refresh against a local stub of the GraphQL API.
+ */
+class CatalogRefreshServiceTest {
+    private final CountryDataSyncService countryDataSyncService = mock(CountryDataSyncService.class);
+    private final CountryService countryService = mock(CountryService.class);
+
+    private HttpServer graphQlStub;
+    private String graphQlResponse;
+    private GraphQlService graphQlService;
+    private CatalogRefreshService catalogRefreshService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        graphQlStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        graphQlStub.createContext("/", exchange -> {
+            byte[] body = graphQlResponse.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        graphQlStub.start();
+
+        graphQlService = new GraphQlService("http://localhost:" + graphQlStub.getAddress().getPort() + "/",
+                "graphql/getContinentDetails.graphql", Duration.ofSeconds(5), Duration.ofSeconds(5), 0, Duration.ofMillis(10));
+        catalogRefreshService = new CatalogRefreshService(graphQlService, countryDataSyncService, countryService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        graphQlService.dispose();
+        graphQlStub.stop(0);
+    }
+
+    /**
+     * This test method is used to test that the catalog is swapped only when some rows changed.
+     */
+    @Test
+    void refreshShouldSwapCatalogOnlyWhenDataChanged() {
+        graphQlResponse = """
+                {"data":{"continents":[{"code":"EU","name":"Europe","countries":[{"code":"IT","name":"Italy"}]}]}}
+                """;
+        when(countryDataSyncService.synchronize(anyList()))
+                .thenReturn(new CountryDataSyncService.SyncResult(0, 0, 0))
+                .thenReturn(new CountryDataSyncService.SyncResult(0, 1, 0));
+
+        catalogRefreshService.refresh();
+        verify(countryService, never()).refreshCountryCatalog();
+
+        assertEquals(1, catalogRefreshService.refresh().updatedRows());
+        verify(countryService).refreshCountryCatalog();
+    }
+
+    /**
+     * This test method is used to test that an empty upstream response never reaches the database.
+     */
+    @Test
+    void refreshShouldKeepDataWhenApiReturnsNoContinents() {
+        graphQlResponse = """
+                {"data":{"continents":[]}}
+                """;
+
+        assertThrows(IllegalStateException.class, () -> catalogRefreshService.refresh());
+        verifyNoInteractions(countryDataSyncService, countryService);
+    }
+}
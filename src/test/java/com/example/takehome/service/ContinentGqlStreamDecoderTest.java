@@ -0,0 +1,59 @@
+package com.example.takehome.service;
+
+import com.example.takehome.dto.graphql.ContinentGqlData;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class is used to test the incremental decoding of the GraphQL continents response.
+ */
+class ContinentGqlStreamDecoderTest {
+    private static final byte[] RESPONSE = """
+            {"data":{"continents":[
+              {"code":"EU","name":"Europe","countries":[{"code":"IT","name":"Italy"},{"code":"FR","name":"France"}]},
+              {"code":"AN","name":"Antarctica","unknown":{"a":[1,{}]},"countries":[]}
+            ]},"errors":[{"continents":[{"code":"XX"}]}]}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * This test method is used to test that every continent is decoded as soon as its object is complete,
+     * whatever the size of the chunks.
+     */
+    @Test
+    void decodeShouldReturnContinentsAsTheyArrive() {
+        int firstContinentEnd = new String(RESPONSE, StandardCharsets.UTF_8).indexOf("]}") + 2;
+        for (int chunkSize : new int[]{1, 7, RESPONSE.length}) {
+            ContinentGqlStreamDecoder decoder = new ContinentGqlStreamDecoder();
+            List<ContinentGqlData.Continent> continents = new ArrayList<>();
+            for (int offset = 0; offset < RESPONSE.length; offset += chunkSize) {
+                continents.addAll(decoder.decode(Arrays.copyOfRange(RESPONSE, offset, Math.min(RESPONSE.length, offset + chunkSize))));
+                // Nothing is decoded before the end of the first continent, then it is returned right away
+                assertEquals(offset + chunkSize < firstContinentEnd, continents.isEmpty());
+            }
+            continents.addAll(decoder.endOfInput());
+
+            assertEquals(List.of("EU", "AN"), continents.stream().map(ContinentGqlData.Continent::getCode).toList());
+            assertEquals(List.of("Italy", "France"),
+                    continents.get(0).getCountries().stream().map(ContinentGqlData.Country::getName).toList());
+            assertTrue(continents.get(1).getCountries().isEmpty());
+        }
+    }
+
+    /**
+     * This test method is used to test that a truncated response is reported.
+     */
+    @Test
+    void endOfInputShouldRejectTruncatedResponse() {
+        ContinentGqlStreamDecoder decoder = new ContinentGqlStreamDecoder();
+        decoder.decode(Arrays.copyOf(RESPONSE, 60));
+
+        assertThrows(UncheckedIOException.class, decoder::endOfInput);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.takehome.service;
+
+import com.example.takehome.catalog.CountryCatalog;
+import com.example.takehome.catalog.CountryCatalogSnapshot;
+import com.example.takehome.model.Continent;
+import com.example.takehome.model.Country;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * This class is used to test the loading of the country catalog at startup.
+ */
+class CountryCatalogLoaderTest {
+    private final Continent europe = new Continent("EU", "Europe", null);
+    private final CountryCatalog catalog = CountryCatalog.of(List.of(new Country("IT", "Italy", europe)));
+    private final CountryService countryService = mock(CountryService.class);
+
+    @TempDir
+    private Path directory;
+
+    /**
+     * This test method is used to test that a stale snapshot is served when the database can not be read,
+     * and replaced with the database data once the application is ready.
+     */
+    @Test
+    void loadShouldServeStaleSnapshotWhenDatabaseFails() throws IOException {
+        Path path = directory.resolve("catalog.snapshot");
+        new CountryCatalogSnapshot(catalog, Instant.now().minus(Duration.ofDays(1))).write(path);
+        CountryCatalogLoader countryCatalogLoader = new CountryCatalogLoader(countryService,
+                new CountryCatalogSnapshotService(path.toString(), Duration.ZERO));
+        when(countryService.refreshCountryCatalog()).thenThrow(new IllegalStateException("Database down"));
+
+        countryCatalogLoader.loadCountryCatalog();
+        verify(countryService).serveSnapshotCatalog(argThat(snapshot -> snapshot.getVersion().equals(catalog.getVersion())));
+
+        reset(countryService);
+        when(countryService.isServingSnapshot()).thenReturn(true);
+        countryCatalogLoader.replaceSnapshotCatalog();
+        verify(countryService).refreshCountryCatalog();
+    }
+
+    /**
+     * This test method is used to test that the database is not read again once the catalog was loaded from it.
+     */
+    @Test
+    void replaceShouldSkipCatalogLoadedFromDatabase() {
+        CountryCatalogLoader countryCatalogLoader = new CountryCatalogLoader(countryService,
+                new CountryCatalogSnapshotService("", Duration.ZERO));
+
+        countryCatalogLoader.loadCountryCatalog();
+        countryCatalogLoader.replaceSnapshotCatalog();
+
+        verify(countryService).refreshCountryCatalog();
+        verify(countryService, never()).serveSnapshotCatalog(any());
+    }
+}
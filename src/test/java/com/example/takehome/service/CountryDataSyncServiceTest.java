@@ -0,0 +1,94 @@
+package com.example.takehome.service;
+
+import com.example.takehome.dto.graphql.ContinentGqlData;
+import com.example.takehome.model.Continent;
+import com.example.takehome.model.Country;
+import com.example.takehome.repository.ContinentRepository;
+import com.example.takehome.repository.CountryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class is used to test the synchronization of the country data with the GraphQL source data.
+ */
+class CountryDataSyncServiceTest {
+    private final ContinentRepository continentRepository = mock(ContinentRepository.class);
+    private final CountryRepository countryRepository = mock(CountryRepository.class);
+    private final CountryDataSyncService countryDataSyncService =
+            new CountryDataSyncService(continentRepository, countryRepository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(countryDataSyncService, "maxDeleteRatio", 0.4);
+    }
+
+    /**
+     * This test method is used to test that only the changed rows are written.
+     */
+    @Test
+    void synchronizeShouldWriteOnlyChangedRows() throws Exception {
+        Continent europe = new Continent("EU", "Europe", null);
+        Continent atlantis = new Continent("AT", "Atlantis", null);
+        Country italy = new Country("IT", "Italy", europe);
+        Country france = new Country("FR", "France", europe);
+        Country lostCountry = new Country("XL", "Lost", atlantis);
+        when(continentRepository.findAll()).thenReturn(List.of(europe, atlantis));
+        when(countryRepository.findAll()).thenReturn(List.of(italy, france, lostCountry));
+        when(continentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ContinentGqlData source = new ObjectMapper().readValue("""
+                {"data":{"continents":[
+                  {"code":"EU","name":"Europe","countries":[{"code":"IT","name":"Italy"},{"code":"FR","name":"French Republic"}]},
+                  {"code":"NA","name":"North America","countries":[{"code":"CA","name":"Canada"}]}
+                ]}}
+                """, ContinentGqlData.class);
+
+        CountryDataSyncService.SyncResult result = countryDataSyncService.synchronize(source.getData().getContinents());
+
+        assertEquals(new CountryDataSyncService.SyncResult(2, 1, 2), result);
+        assertEquals("French Republic", france.getName());
+        assertEquals("Italy", italy.getName());
+        verify(continentRepository).save(argThat(continent -> continent.getCode().equals("NA")));
+        verify(countryRepository).save(argThat(country -> country.getCode().equals("CA")
+                && country.getContinent().getCode().equals("NA")));
+        verify(countryRepository).deleteAll(List.of(lostCountry));
+        verify(continentRepository).deleteAll(List.of(atlantis));
+        assertSame(europe, france.getContinent());
+    }
+
+    /**
+     * This test method is used to test that the rows missing from the source data are kept
+     * when they exceed the maximum delete ratio.
+     */
+    @Test
+    void synchronizeShouldSkipDeletesAboveMaxDeleteRatio() throws Exception {
+        Continent europe = new Continent("EU", "Europe", null);
+        Country italy = new Country("IT", "Italy", europe);
+        Country france = new Country("FR", "France", europe);
+        Country spain = new Country("ES", "Spain", europe);
+        when(continentRepository.findAll()).thenReturn(List.of(europe));
+        when(countryRepository.findAll()).thenReturn(List.of(italy, france, spain));
+
+        ContinentGqlData source = new ObjectMapper().readValue("""
+                {"data":{"continents":[
+                  {"code":"EU","name":"Europa","countries":[{"code":"IT","name":"Italy"}]}
+                ]}}
+                """, ContinentGqlData.class);
+
+        CountryDataSyncService.SyncResult result = countryDataSyncService.synchronize(source.getData().getContinents());
+
+        assertEquals(new CountryDataSyncService.SyncResult(0, 1, 0), result);
+        assertEquals("Europa", europe.getName());
+        verify(countryRepository, never()).deleteAll(any());
+        verify(continentRepository, never()).deleteAll(any());
+    }
+}
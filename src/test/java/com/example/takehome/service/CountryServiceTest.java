@@ -0,0 +1,130 @@
+package com.example.takehome.service;
+
+import com.example.takehome.dto.batch.CountryBatchResponse;
+import com.example.takehome.dto.batch.CountryBatchResult;
+import com.example.takehome.model.Continent;
+import com.example.takehome.model.Country;
+import com.example.takehome.repository.CountryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * This class is used to test the country service on a catalog loaded from a mocked repository.
+ */
+class CountryServiceTest {
+    private final Continent northAmerica = new Continent("NA", "North America", null);
+    private final Continent europe = new Continent("EU", "Europe", null);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CountryService countryService;
+
+    @BeforeEach
+    void setUp() {
+        CountryRepository countryRepository = mock(CountryRepository.class);
+        when(countryRepository.findAllWithContinent()).thenReturn(List.of(
+                new Country("US", "United States", northAmerica),
+                new Country("CA", "Canada", northAmerica),
+                new Country("IT", "Italy", europe),
+                new Country("FR", "France", europe)
+        ));
+        countryService = new CountryService(countryRepository, new CountryCatalogSnapshotService("", Duration.ZERO),
+                new PipelineStageTimers(meterRegistry));
+        countryService.refreshCountryCatalog();
+    }
+
+    /**
+     * This test method is used to test the batch of queries.
+     * The results should be in the order of the queries and the invalid queries should get an error
+     * without failing the batch.
+     */
+    @Test
+    void getContinentCountriesBatchShouldResolveEveryQuery() {
+        CountryBatchResponse response = countryService.getContinentCountriesBatch(
+                Arrays.asList("us, ca", "ZZ", "IT,X", null, "FR"));
+
+        assertEquals(countryService.getCountryCatalog().getVersion(), response.getCatalogVersion());
+        List<CountryBatchResult> results = response.getResults();
+        assertEquals(5, results.size());
+
+        assertEquals("us, ca", results.get(0).getQuery());
+        assertNull(results.get(0).getError());
+        assertEquals(1, results.get(0).getContinents().size());
+        assertEquals(List.of("CA", "US"), results.get(0).getContinents().get(0).getCountries());
+
+        assertEquals("Your request could not be processed. " + CountryService.ONLY_INVALID_COUNTRY_CODES, results.get(1).getError());
+        assertNull(results.get(1).getContinents());
+        assertEquals("Your request could not be processed. Country code must be 2 characters long, found 'X'",
+                results.get(2).getError());
+        assertNotNull(results.get(3).getError());
+
+        assertEquals(List.of("FR"), results.get(4).getContinents().get(0).getCountries());
+        assertEquals(List.of("IT"), results.get(4).getContinents().get(0).getOtherCountries());
+    }
+
+    /**
+     * This test method is used to test that the conversion of every valid query of a batch is timed,
+     * as a private stage without a cache.
+     */
+    @Test
+    void getContinentCountriesBatchShouldTimeConversions() {
+        countryService.getContinentCountriesBatch(Arrays.asList("us, ca", "ZZ", "FR"));
+
+        assertEquals(2, meterRegistry.get("countries.pipeline")
+                .tag("stage", PipelineStageTimers.CONVERSION)
+                .tag("endpoint", PipelineStageTimers.PRIVATE_ENDPOINT)
+                .tag("cache", PipelineStageTimers.NO_CACHE)
+                .timer().count());
+    }
+
+    /**
+     * This test method is used to test the streaming of queries.
+     * It should write one JSON line per non-blank input line, and an error for the lines that are too long.
+     */
+    @Test
+    void streamContinentCountriesShouldWriteOneLinePerQuery() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        long resultCount = countryService.streamContinentCountries(
+                new StringReader("CA,US\r\n\nZZ\n" + "IT,".repeat(10) + "\nFR"), outputStream, 16, () -> true);
+
+        assertEquals(4, resultCount);
+        assertEquals("""
+                {"query":"CA,US","continents":[{"countries":["CA","US"],"name":"North America","otherCountries":[]}]}
+                {"query":"ZZ","error":"Your request could not be processed. The list of countries contains only invalid country codes."}
+                {"error":"The line is longer than 16 characters."}
+                {"query":"FR","continents":[{"countries":["FR"],"name":"Europe","otherCountries":["IT"]}]}
+                """, outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * This test method is used to test that the stream ends with an error result once a query is refused
+     * by the rate limiter, without resolving the remaining queries.
+     */
+    @Test
+    void streamContinentCountriesShouldStopWhenQueryIsRefused() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        int[] charged = {0};
+        long resultCount = countryService.streamContinentCountries(
+                new StringReader("CA\n\nUS\nIT\nFR\n"), outputStream, 16, () -> ++charged[0] <= 2);
+
+        assertEquals(3, resultCount);
+        assertEquals(3, charged[0]);
+        assertEquals("""
+                {"query":"CA","continents":[{"countries":["CA"],"name":"North America","otherCountries":["US"]}]}
+                {"query":"US","continents":[{"countries":["US"],"name":"North America","otherCountries":["CA"]}]}
+                {"error":"Too many requests, the remaining queries of the stream were not resolved."}
+                """, outputStream.toString(StandardCharsets.UTF_8));
+    }
+}
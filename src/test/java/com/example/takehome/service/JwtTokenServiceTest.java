@@ -1,6 +1,7 @@
 package com.example.takehome.service;
 
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.aspectj.lang.annotation.Before;
@@ -14,6 +15,7 @@ import org.springframework.test.context.ContextConfiguration;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -139,4 +141,68 @@ public class JwtTokenServiceTest {
             assertTrue(e instanceof ExpiredJwtException);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * This test method is used to test the cache of the verified tokens.
+     * It should return the claims verified by the first call for the same token.
+     */
+    @Test
+    public void testVerifyTokenIsCached() {
+        String jwtToken = Jwts.builder()
+                .setSubject("cached-user")
+                .setExpiration(new Date(System.currentTimeMillis() + jwtTokenService.getJwtTokenExpirationTime()))
+                .signWith(jwtTokenService.getSignInKey(), SignatureAlgorithm.HS256)
+                .compact();
+
+        JwtTokenService.VerifiedToken verifiedToken = jwtTokenService.verifyToken(jwtToken);
+        assertEquals("cached-user", verifiedToken.userName());
+        assertSame(verifiedToken, jwtTokenService.verifyToken(jwtToken));
+    }
+
+    /**
+     * This test method is used to test that a token with a modified signature is rejected,
+     * even when the original token was verified and cached.
+     */
+    @Test
+    public void testVerifyTokenRejectsModifiedSignature() {
+        String jwtToken = Jwts.builder()
+                .setSubject("user")
+                .setExpiration(new Date(System.currentTimeMillis() + jwtTokenService.getJwtTokenExpirationTime()))
+                .signWith(jwtTokenService.getSignInKey(), SignatureAlgorithm.HS256)
+                .compact();
+        jwtTokenService.verifyToken(jwtToken);
+
+        String modifiedToken = jwtToken.substring(0, jwtToken.length() - 2) + (jwtToken.endsWith("AA") ? "BB" : "AA");
+        assertThrows(JwtException.class, () -> jwtTokenService.verifyToken(modifiedToken));
+    }
+
+    /**
+     * This test method is used to test the principal built from the user claims of a token.
+     * It should authenticate the user without loading it, and only when the claims are present.
+     */
+    @Test
+    public void testVerifiedTokenUserClaims() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtTokenService.USER_ID_CLAIM, 42L);
+        claims.put(JwtTokenService.ROLES_CLAIM, List.of("ADMIN"));
+        String jwtToken = Jwts.builder()
+                .setClaims(claims)
+                .setSubject("admin@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + jwtTokenService.getJwtTokenExpirationTime()))
+                .signWith(jwtTokenService.getSignInKey(), SignatureAlgorithm.HS256)
+                .compact();
+
+        JwtTokenService.VerifiedToken verifiedToken = jwtTokenService.verifyToken(jwtToken);
+        assertTrue(verifiedToken.hasUserClaims());
+        assertEquals(42L, verifiedToken.toPrincipal().id());
+        assertEquals("admin@example.com", verifiedToken.toPrincipal().getName());
+        assertEquals("ADMIN", verifiedToken.authorities().get(0).getAuthority());
+
+        String tokenWithoutClaims = Jwts.builder()
+                .setSubject("admin@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + jwtTokenService.getJwtTokenExpirationTime()))
+                .signWith(jwtTokenService.getSignInKey(), SignatureAlgorithm.HS256)
+                .compact();
+        assertFalse(jwtTokenService.verifyToken(tokenWithoutClaims).hasUserClaims());
+    }
+}
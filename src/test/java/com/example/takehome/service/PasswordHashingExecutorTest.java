@@ -0,0 +1,65 @@
+package com.example.takehome.service;
+
+import com.example.takehome.exception.TooManyLoginsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class is used to test the password hashing executor.
+ */
+class PasswordHashingExecutorTest {
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * This test method is used to test that the tasks run on the dedicated threads.
+     */
+    @Test
+    void submitShouldRunOnPasswordHashingThread() throws Exception {
+        String threadName = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        assertTrue(threadName.startsWith("password-hashing-"));
+    }
+
+    /**
+     * This test method is used to test that the tasks are rejected once the threads are busy and the queue is full.
+     */
+    @Test
+    void submitShouldRejectWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = executor.submit(() -> {
+            started.countDown();
+            awaitQuietly(release);
+            return "running";
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = executor.submit(() -> "queued");
+
+        assertThrows(TooManyLoginsException.class, () -> executor.submit(() -> "rejected"));
+
+        release.countDown();
+        assertEquals("running", running.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.takehome.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class is used to test the timers of the stages of the country lookup pipeline.
+ */
+class PipelineStageTimersTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PipelineStageTimers pipelineStageTimers = new PipelineStageTimers(meterRegistry);
+
+    /**
+     * This test method is used to test that a lookup running the conversion is recorded as a cache miss,
+     * with the duration of the conversion.
+     */
+    @Test
+    void lookupShouldRecordCacheMissWhenTheConversionRuns() {
+        String result = pipelineStageTimers.lookup(PipelineStageTimers.PRIVATE_ENDPOINT,
+                () -> pipelineStageTimers.conversion(() -> "converted"));
+
+        assertEquals("converted", result);
+        assertEquals(1, timer(PipelineStageTimers.LOOKUP, PipelineStageTimers.PRIVATE_ENDPOINT, PipelineStageTimers.CACHE_MISS).count());
+        assertEquals(1, timer(PipelineStageTimers.CONVERSION, PipelineStageTimers.PRIVATE_ENDPOINT, PipelineStageTimers.CACHE_MISS).count());
+    }
+
+    /**
+     * This test method is used to test that a lookup answered without the conversion is recorded as a cache hit,
+     * even after a miss on the same thread.
+     */
+    @Test
+    void lookupShouldRecordCacheHitWithoutConversion() {
+        pipelineStageTimers.lookup(PipelineStageTimers.PUBLIC_ENDPOINT, () -> pipelineStageTimers.conversion(() -> "converted"));
+        pipelineStageTimers.lookup(PipelineStageTimers.PUBLIC_ENDPOINT, () -> "cached");
+
+        assertEquals(1, timer(PipelineStageTimers.LOOKUP, PipelineStageTimers.PUBLIC_ENDPOINT, PipelineStageTimers.CACHE_HIT).count());
+        assertEquals(1, timer(PipelineStageTimers.LOOKUP, PipelineStageTimers.PUBLIC_ENDPOINT, PipelineStageTimers.CACHE_MISS).count());
+    }
+
+    /**
+     * This test method is used to test that the durations are recorded with all the tags.
+     */
+    @Test
+    void recordShouldTagTheStage() {
+        pipelineStageTimers.record(PipelineStageTimers.PARSE, PipelineStageTimers.PUBLIC_ENDPOINT, PipelineStageTimers.NO_CACHE, 2_000_000);
+
+        Timer timer = timer(PipelineStageTimers.PARSE, PipelineStageTimers.PUBLIC_ENDPOINT, PipelineStageTimers.NO_CACHE);
+        assertEquals(1, timer.count());
+        assertEquals(2, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    /**
+     * This test method is used to test that the endpoint is found from the request path.
+     */
+    @Test
+    void endpointOfShouldTellPrivateFromPublicPaths() {
+        assertEquals(PipelineStageTimers.PRIVATE_ENDPOINT, PipelineStageTimers.endpointOf("/api/v1/private/countries/RO"));
+        assertEquals(PipelineStageTimers.PUBLIC_ENDPOINT, PipelineStageTimers.endpointOf("/api/v1/public/countries/RO"));
+    }
+
+    private Timer timer(String stage, String endpoint, String cache) {
+        return meterRegistry.get("countries.pipeline").tag("stage", stage).tag("endpoint", endpoint).tag("cache", cache).timer();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.takehome.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class is used to test the bcrypt strength calibration.
+ */
+class BCryptStrengthCalibratorTest {
+
+    /**
+     * This test method is used to test that the strength is raised while the doubled check time stays within the target.
+     */
+    @Test
+    void strengthForShouldStayWithinTarget() {
+        // 50 ms at 10, 100 ms at 11, 200 ms at 12, 400 ms at 13
+        assertEquals(12, BCryptStrengthCalibrator.strengthFor(50_000_000, 250_000_000, 10, 16));
+        assertEquals(12, BCryptStrengthCalibrator.strengthFor(50_000_000, 200_000_000, 10, 16));
+    }
+
+    /**
+     * This test method is used to test that the strength is kept between the minimum and the maximum.
+     */
+    @Test
+    void strengthForShouldBeBounded() {
+        assertEquals(10, BCryptStrengthCalibrator.strengthFor(500_000_000, 200_000_000, 10, 16));
+        assertEquals(16, BCryptStrengthCalibrator.strengthFor(1_000, 200_000_000, 10, 16));
+        assertEquals(10, BCryptStrengthCalibrator.strengthFor(0, 200_000_000, 10, 10));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.takehome.util;
+
+import com.example.takehome.catalog.CountryCodeSlots;
+import com.example.takehome.exception.ApiInputDataValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * This class is used to test the country code parser.
+ */
+class CountryCodeParserTest {
+
+    /**
+     * This test method is used to test the parsing of badly formatted codes.
+     * It should ignore white characters, case and duplicates.
+     */
+    @Test
+    void parseShouldCleanCodes() {
+        BitSet codeSet = CountryCodeParser.parse("CA, u S,mx\t,US");
+
+        assertEquals(List.of("CA", "MX", "US"), CountryCodeSlots.toCodes(codeSet));
+    }
+
+    /**
+     * This test method is used to test that codes which are not made of letters are ignored like unknown codes.
+     */
+    @Test
+    void parseShouldIgnoreCodesWithoutLetters() {
+        BitSet codeSet = CountryCodeParser.parse("11,IT");
+
+        assertEquals(List.of("IT"), CountryCodeSlots.toCodes(codeSet));
+    }
+
+    /**
+     * This test method is used to test the parsing of invalid codes.
+     * It should report the first code that is not 2 characters long.
+     */
+    @Test
+    void parseShouldReportFirstInvalidCode() {
+        ApiInputDataValidationException e = assertThrows(ApiInputDataValidationException.class,
+                () -> CountryCodeParser.parse("CA, USA ,CAD"));
+
+        assertEquals("Your request could not be processed. Country code must be 2 characters long, found 'USA'",
+                e.getMessage());
+    }
+
+    /**
+     * This test method is used to test that empty codes are rejected.
+     */
+    @Test
+    void parseShouldRejectEmptyCodes() {
+        assertThrows(ApiInputDataValidationException.class, () -> CountryCodeParser.parse("CA,,US"));
+        assertThrows(ApiInputDataValidationException.class, () -> CountryCodeParser.parse("CA,"));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.takehome.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class is used to test the sampling of the logged events.
+ */
+class SampledLogTest {
+
+    /**
+     * This test method is used to test that one event is logged per interval, with the count of the events since the previous one.
+     */
+    @Test
+    void sampleShouldLogOneEventPerInterval() throws InterruptedException {
+        SampledLog sampledLog = new SampledLog(Duration.ofMillis(50));
+
+        assertEquals(1, sampledLog.sample());
+        assertEquals(0, sampledLog.sample());
+        assertEquals(0, sampledLog.sample());
+
+        Thread.sleep(60);
+        assertEquals(3, sampledLog.sample());
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.takehome.util;
 
+import com.example.takehome.catalog.CountryCatalog;
 import com.example.takehome.dto.ContinentCountryData;
 import com.example.takehome.exception.ApiInputDataValidationException;
 import com.example.takehome.model.Continent;
@@ -56,6 +57,34 @@ class UtilTest {
         });
     }
 
+    /**
+     * This test method is used to test the convertToContinentCountries method using the catalog rosters.
+     * It should return the continents in catalog order and the countries in alphabetical order.
+     */
+    @Test
+    void convertToContinentCountriesFromCatalog() {
+        Continent northAmerica = new Continent("NA", "North America", null);
+        Continent europe = new Continent("EU", "Europe", null);
+        CountryCatalog catalog = CountryCatalog.of(List.of(
+                new Country("US", "USA", northAmerica),
+                new Country("CA", "Canada", northAmerica),
+                new Country("MX", "Mexico", northAmerica),
+                new Country("IT", "Italy", europe),
+                new Country("FR", "France", europe)
+        ));
+
+        List<ContinentCountryData> continentCountryData = Util.convertToContinentCountries(
+                catalog, catalog.toCodeSet(List.of("US", "IT", "CA", "ZZ")));
+
+        assertEquals(2, continentCountryData.size());
+        assertEquals("Europe", continentCountryData.get(0).getName());
+        assertEquals(List.of("IT"), continentCountryData.get(0).getCountries());
+        assertEquals(List.of("FR"), continentCountryData.get(0).getOtherCountries());
+        assertEquals("North America", continentCountryData.get(1).getName());
+        assertEquals(List.of("CA", "US"), continentCountryData.get(1).getCountries());
+        assertEquals(List.of("MX"), continentCountryData.get(1).getOtherCountries());
+    }
+
     /**
      * This test method is used to test the processCountries utility method.
      * It should process the list of countries, eliminate duplicates
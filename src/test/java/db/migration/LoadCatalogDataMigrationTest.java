@@ -0,0 +1,54 @@
+package db.migration;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * This class is used to test the catalog data files loaded by the R__Load_Catalog_Data migration.
+ */
+class LoadCatalogDataMigrationTest {
+
+    /**
+     * This test method is used to test that every country of the bundled data belongs to a bundled continent,
+     * since the countries are inserted with the foreign key of their continent.
+     */
+    @Test
+    void bundledCountriesShouldReferenceBundledContinents() throws IOException {
+        List<String> continents = readLines(R__Load_Catalog_Data.CONTINENTS_CSV);
+        List<String> countries = readLines(R__Load_Catalog_Data.COUNTRIES_CSV);
+
+        assertEquals("code,name", continents.get(0));
+        assertEquals("code,name,continent_code", countries.get(0));
+        assertEquals(7, continents.size() - 1);
+        assertEquals(250, countries.size() - 1);
+
+        Set<String> continentCodes = continents.stream().skip(1)
+                .map(line -> line.substring(0, line.indexOf(',')))
+                .collect(Collectors.toSet());
+        countries.stream().skip(1).forEach(line ->
+                assertTrue(continentCodes.contains(line.substring(line.lastIndexOf(',') + 1)), line));
+    }
+
+    /**
+     * This test method is used to test that the checksum only depends on the data files,
+     * so that Flyway runs the migration again only when they change.
+     */
+    @Test
+    void checksumShouldBeStable() {
+        assertEquals(new R__Load_Catalog_Data().getChecksum(), new R__Load_Catalog_Data().getChecksum());
+    }
+
+    private static List<String> readLines(String resource) throws IOException {
+        try (InputStream inputStream = LoadCatalogDataMigrationTest.class.getClassLoader().getResourceAsStream(resource)) {
+            assertNotNull(inputStream, resource);
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+}